@@ -0,0 +1,212 @@
+package Benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class CorpusGenerator {
+    /*------------------------------------------------------------
+    * Generates valid MiniJava programs of a given size.
+    *   classes : number of classes besides the main class.
+    *   methods : methods per class.
+    *   depth   : length of the extends chains (1 = no inheritance).
+    *             Every sub class overrides half of the methods.
+    *   nesting : nesting of the arithmetic / boolean expressions.
+    * The programs also run , so they can be used to check the
+    * generated code.
+    ------------------------------------------------------------*/
+
+    private final int classes;
+    private final int methods;
+    private final int depth;
+    private final int nesting;
+
+    public CorpusGenerator(int classes, int methods, int depth, int nesting){
+        this.classes = Math.max(1,classes);
+        this.methods = Math.max(1,methods);
+        this.depth = Math.max(1,depth);
+        this.nesting = Math.max(0,nesting);
+    }
+
+    public String Generate(String mainClass){
+        StringBuilder out = new StringBuilder();
+        out.append("class ").append(mainClass).append(" {\n")
+                .append("    public static void main(String[] a) {\n")
+                .append("        int sum;\n")
+                .append("        sum = 0;\n");
+        for(int c = 0; c < classes; c++)
+            out.append("        sum = sum + (new C").append(c).append("().Init(").append(c).append("));\n");
+        out.append("        System.out.println(sum);\n")
+                .append("    }\n")
+                .append("}\n\n");
+
+        for(int c = 0; c < classes; c++)
+            GenerateClass(c, out);
+        return out.toString();
+    }
+
+    private boolean HasSuper(int c) { return c % depth != 0; }
+
+    private void GenerateClass(int c, StringBuilder out){
+        out.append("class C").append(c);
+        if(HasSuper(c))
+            out.append(" extends C").append(c - 1);
+        out.append(" {\n")
+                .append("    int f").append(c).append(";\n")
+                .append("    boolean b").append(c).append(";\n")
+                .append("    int[] arr").append(c).append(";\n\n");
+
+        // Init sets the fields of the whole chain (inherited methods use them) and calls every method.
+        out.append("    public int Init(int seed) {\n")
+                .append("        int total;\n");
+        for(int k = c - c % depth; k <= c; k++)
+            out.append("        f").append(k).append(" = seed;\n")
+                    .append("        b").append(k).append(" = seed < ").append(k + 1).append(";\n")
+                    .append("        arr").append(k).append(" = new int[").append(methods + 1).append("];\n");
+        out.append("        total = 0;\n");
+        for(int m = 0; m < methods; m++)
+            out.append("        total = total + (this.m").append(m).append("(seed, ").append(m).append("));\n");
+        out.append("        return total;\n")
+                .append("    }\n\n");
+
+        boolean sub = HasSuper(c);
+        for(int m = 0; m < methods; m++){
+            if(sub && m % 2 == 1) // Inherited.
+                continue;
+            GenerateMethod(c, m, out);
+        }
+        out.append("}\n\n");
+    }
+
+    private void GenerateMethod(int c, int m, StringBuilder out){
+        String field = "f" + c;
+        String flag = "b" + c;
+        String arr = "arr" + c;
+        out.append("    public int m").append(m).append("(int p, int q) {\n")
+                .append("        int x;\n")
+                .append("        int i;\n")
+                .append("        boolean ok;\n")
+                .append("        x = ").append(IntExpression(nesting, field)).append(";\n")
+                .append("        ok = ").append(BoolExpression(nesting, flag)).append(";\n")
+                .append("        i = 0;\n")
+                .append("        while (i < q) {\n")
+                .append("            ").append(arr).append("[i] = x + i;\n")
+                .append("            i = i + 1;\n")
+                .append("        }\n")
+                .append("        if (ok) {\n")
+                .append("            x = x + (").append(arr).append("[q]);\n")
+                .append("        } else {\n")
+                .append("            x = x - (").append(arr).append(".length);\n")
+                .append("        }\n");
+        if(m > 0) // Calls the previous method , never recursive.
+            out.append("        x = x + (this.m").append(m - 1).append("(q, ").append(m - 1).append("));\n");
+        out.append("        return x;\n")
+                .append("    }\n\n");
+    }
+
+    // ((((p + 1) * q) - f) + 3) ...
+    private String IntExpression(int level, String field){
+        if(level == 0)
+            return "p";
+        String inner = "(" + IntExpression(level - 1, field) + ")";
+        switch (level % 4){
+            case 0:
+                return inner + " + " + level;
+            case 1:
+                return inner + " * q";
+            case 2:
+                return inner + " - " + field;
+            default:
+                return inner + " + p";
+        }
+    }
+
+    // ((p < q) && !(b)) && (q < 3) ...
+    private String BoolExpression(int level, String flag){
+        if(level == 0)
+            return "p < q";
+        String inner = "(" + BoolExpression(level - 1, flag) + ")";
+        switch (level % 3){
+            case 0:
+                return inner + " && (q < " + level + ")";
+            case 1:
+                return "!" + inner;
+            default:
+                return inner + " && !(" + flag + ")";
+        }
+    }
+
+    /*------------------------------------------------------------
+    * A program whose statements and expressions nest depth times
+    * (for --stack-safe) : a bracketed sum , a chain of nots and an
+    * else if chain. Built with loops , any depth fits.
+    ------------------------------------------------------------*/
+    public static String Nested(String mainClass, int depth){
+        StringBuilder out = new StringBuilder();
+        out.append("class ").append(mainClass).append(" {\n")
+                .append("    public static void main(String[] a) {\n")
+                .append("        System.out.println(new Nest().Run(3));\n")
+                .append("    }\n")
+                .append("}\n\n")
+                .append("class Nest {\n")
+                .append("    public int Run(int p) {\n")
+                .append("        int x;\n")
+                .append("        boolean ok;\n");
+
+        // ((p + 1) + 1) ...
+        out.append("        x = ");
+        for(int i = 0; i < depth; i++)
+            out.append('(');
+        out.append('p');
+        for(int i = 0; i < depth; i++)
+            out.append(" + 1)");
+        out.append(";\n");
+
+        // !!!(x < 1)
+        out.append("        ok = ");
+        for(int i = 0; i < depth; i++)
+            out.append('!');
+        out.append("(x < 1);\n");
+
+        // if (x < 0) x = 0; else if (x < 1) x = 1; else ...
+        out.append("        ");
+        for(int i = 0; i < depth; i++)
+            out.append("if (x < ").append(i).append(") x = ").append(i).append("; else ");
+        out.append("x = x + 1;\n")
+                .append("        return x;\n")
+                .append("    }\n")
+                .append("}\n");
+        return out.toString();
+    }
+
+    /**
+     * usage : CorpusGenerator outDir files classes methods depth nesting
+     *         CorpusGenerator outDir --nested depth
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length == 3 && args[1].equals("--nested")){
+            Path outDir = Paths.get(args[0]);
+            Files.createDirectories(outDir);
+            Files.write(outDir.resolve("Nested.java"), Nested("Nested", Integer.parseInt(args[2])).getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        if(args.length != 6){
+            System.err.println("usage : CorpusGenerator outDir files classes methods depth nesting");
+            System.err.println("        CorpusGenerator outDir --nested depth");
+            System.exit(1);
+        }
+        Path outDir = Paths.get(args[0]);
+        int files = Integer.parseInt(args[1]);
+        CorpusGenerator generator = new CorpusGenerator(Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                Integer.parseInt(args[4]), Integer.parseInt(args[5]));
+
+        Files.createDirectories(outDir);
+        for(int i = 0; i < files; i++){
+            String name = "Synthetic" + i;
+            Files.write(outDir.resolve(name + ".java"), generator.Generate(name).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package Benchmarks;
+
+import CompactAST.Inflater;
+import CompactAST.Tree;
+import LLVM_Generation.GeneratorVisitor;
+import LLVM_Generation.WorklistGenerator;
+import LLVM_Generation.IR.Module;
+import TypeChecking.InitVisitor;
+import TypeChecking.SymbolTable;
+import TypeChecking.WorklistTypeChecker;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = "-Xss512k")
+public class NestingBenchmark {
+    /*-------------------------------------------------------------
+    * The stack-safe phases (compact parse , WorklistTypeChecker ,
+    * WorklistGenerator) on CorpusGenerator.Nested programs. They
+    * run on a small thread stack , so a deep nesting that needed
+    * recursion fails here instead of passing , and the time per
+    * nesting level should stay flat as the depth grows.
+    -------------------------------------------------------------*/
+
+    @Param({"1000", "100000", "1000000"})
+    public int depth;
+
+    private byte[] source;
+    private Tree tree;
+    private SymbolTable table;
+
+    private Method compactParseMethod; // CompactParser is in the default package.
+
+    @Setup(Level.Trial)
+    public void Setup() throws Exception {
+        source = CorpusGenerator.Nested("Bench", depth).getBytes(StandardCharsets.UTF_8);
+        compactParseMethod = Class.forName("CompactParser").getMethod("Parse", ByteBuffer.class);
+
+        tree = parse();
+        table = Init(tree);
+        new WorklistTypeChecker(table, tree).Check();
+    }
+
+    private static SymbolTable Init(Tree tree){
+        InitVisitor init = new InitVisitor();
+        new Inflater(tree, false).Goal().accept(init, null);
+        return init.GetSymbolTable();
+    }
+
+    @Benchmark
+    public Tree parse() throws Exception {
+        return (Tree)compactParseMethod.invoke(null, ByteBuffer.wrap(source));
+    }
+
+    @Benchmark
+    public WorklistTypeChecker typeCheck(){
+        WorklistTypeChecker checker = new WorklistTypeChecker(table, tree);
+        checker.Check();
+        return checker;
+    }
+
+    @Benchmark
+    public Module generate(){
+        GeneratorVisitor gen = new GeneratorVisitor(table);
+        new WorklistGenerator(gen, tree).Generate();
+        return gen.GetModule();
+    }
+
+}
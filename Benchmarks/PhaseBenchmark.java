@@ -0,0 +1,135 @@
+package Benchmarks;
+
+import LLVM_Generation.GeneratorVisitor;
+import LLVM_Generation.IROutput;
+import LLVM_Generation.IRPrinter;
+import LLVM_Generation.IR.Module;
+import TypeChecking.InitVisitor;
+import TypeChecking.SymbolTable;
+import TypeChecking.TypeCheckingVisitor;
+import org.openjdk.jmh.annotations.*;
+import syntaxtree.Goal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhaseBenchmark {
+    /*-------------------------------------------------------------
+    * Throughput of every compiler phase on its own , on synthetic
+    * programs from CorpusGenerator. Each phase gets the output of
+    * the previous ones from the setup so only it is measured.
+    * Run with -prof gc for the allocation rate of each phase.
+    -------------------------------------------------------------*/
+
+    @Param({"10", "100"})
+    public int classes;
+
+    @Param({"10"})
+    public int methods;
+
+    @Param({"1", "10"})
+    public int depth;
+
+    // Parse time grows exponentially with the nesting (syntactic lookahead of Expression).
+    @Param({"2", "6"})
+    public int nesting;
+
+    private byte[] source;
+    private Goal root;
+    private SymbolTable table;
+    private Module module;
+
+    // The generated parser is in the default package , so it can only be reached by reflection.
+    private Constructor<?> parserConstructor;
+    private Method goalMethod;
+    private Method compactParseMethod; // CompactParser.Parse , the compact tree the compiler uses.
+
+    @Setup(Level.Trial)
+    public void Setup() throws Exception {
+        source = new CorpusGenerator(classes, methods, depth, nesting).Generate("Bench")
+                .getBytes(StandardCharsets.UTF_8);
+
+        Class<?> parserClass = Class.forName("MiniJavaParser");
+        parserConstructor = parserClass.getConstructor(InputStream.class);
+        goalMethod = parserClass.getMethod("Goal");
+        compactParseMethod = Class.forName("CompactParser").getMethod("Parse", ByteBuffer.class);
+
+        root = Parse();
+        table = Init(root);
+        root.accept(new TypeCheckingVisitor(table), null);
+        module = Generate(root, table);
+    }
+
+    private Goal Parse() throws Exception {
+        Object parser = parserConstructor.newInstance(new ByteArrayInputStream(source));
+        return (Goal)goalMethod.invoke(parser);
+    }
+
+    private static SymbolTable Init(Goal root){
+        InitVisitor init = new InitVisitor();
+        root.accept(init, null);
+        return init.GetSymbolTable();
+    }
+
+    private static Module Generate(Goal root, SymbolTable table){
+        GeneratorVisitor gen = new GeneratorVisitor(table);
+        root.accept(gen, null);
+        return gen.GetModule();
+    }
+
+    @Benchmark
+    public Goal parse() throws Exception {
+        return Parse();
+    }
+
+    @Benchmark
+    public Object parseCompact() throws Exception {
+        return compactParseMethod.invoke(null, ByteBuffer.wrap(source));
+    }
+
+    @Benchmark
+    public SymbolTable init(){
+        return Init(root);
+    }
+
+    @Benchmark
+    public TypeCheckingVisitor typeCheck(){
+        TypeCheckingVisitor typechecker = new TypeCheckingVisitor(table);
+        root.accept(typechecker, null);
+        return typechecker;
+    }
+
+    @Benchmark
+    public Module generate(){
+        return Generate(root, table);
+    }
+
+    @Benchmark
+    public void print() throws IOException {
+        IROutput out = IROutput.ToStream(OutputStream.nullOutputStream());
+        new IRPrinter(out).Print(module);
+        out.Commit();
+    }
+
+    @Benchmark
+    public Module compile() throws Exception { // All phases together , like CheckFile does.
+        Goal parsed = Parse();
+        SymbolTable symbols = Init(parsed);
+        parsed.accept(new TypeCheckingVisitor(symbols), null);
+        return Generate(parsed, symbols);
+    }
+
+}
@@ -0,0 +1,244 @@
+package CompactAST;
+
+import CompactAST.Tree.Kind;
+import syntaxtree.*;
+
+public class Inflater {
+    /*-------------------------------------------------------------
+    * Lets the visitors traverse a compact Tree. The Goal it gives
+    * only holds stubs of the main class , the class declarations
+    * and the methods. When a visitor reaches a stub , its JTB
+    * nodes are built (punctuation tokens included) for that
+    * visit only and dropped afterwards , so at most one method's
+    * syntax tree is alive at a time whatever the size of the file.
+    * Without bodies , the statements and return expressions of
+    * the methods are left out (the return expression is null) ,
+    * for visitors that only read the declarations (InitVisitor).
+    -------------------------------------------------------------*/
+
+    private final Tree tree;
+    private final boolean bodies;
+
+    public Inflater(Tree tree){
+        this(tree, true);
+    }
+
+    public Inflater(Tree tree, boolean bodies){
+        this.tree = tree;
+        this.bodies = bodies;
+    }
+
+    public Goal Goal(){
+        int main = tree.GetFirstChild(tree.GetRoot());
+        NodeListOptional declarations = new NodeListOptional();
+        for(int node = tree.GetNext(main); node >= 0; node = tree.GetNext(node))
+            declarations.addNode(new LazyTypeDeclaration(node));
+        return new Goal(new LazyMainClass(main), declarations);
+    }
+
+    /*------------------------- Stubs -------------------------*/
+
+    private class LazyMainClass extends MainClass {
+        private static final long serialVersionUID = 1L;
+        private final int node;
+        LazyMainClass(int node) { super(null, null, null, null); this.node = node; }
+
+        public void accept(visitor.Visitor v) { MainClass(node).accept(v); }
+        public <R,A> R accept(visitor.GJVisitor<R,A> v, A argu) { return MainClass(node).accept(v, argu); }
+        public <R> R accept(visitor.GJNoArguVisitor<R> v) { return MainClass(node).accept(v); }
+        public <A> void accept(visitor.GJVoidVisitor<A> v, A argu) { MainClass(node).accept(v, argu); }
+    }
+
+    private class LazyTypeDeclaration extends TypeDeclaration {
+        private static final long serialVersionUID = 1L;
+        private final int node;
+        LazyTypeDeclaration(int node) { super(null); this.node = node; }
+
+        public void accept(visitor.Visitor v) { TypeDeclaration(node).accept(v); }
+        public <R,A> R accept(visitor.GJVisitor<R,A> v, A argu) { return TypeDeclaration(node).accept(v, argu); }
+        public <R> R accept(visitor.GJNoArguVisitor<R> v) { return TypeDeclaration(node).accept(v); }
+        public <A> void accept(visitor.GJVoidVisitor<A> v, A argu) { TypeDeclaration(node).accept(v, argu); }
+    }
+
+    private class LazyMethodDeclaration extends MethodDeclaration {
+        private static final long serialVersionUID = 1L;
+        private final int node;
+        LazyMethodDeclaration(int node) { super(null, null, null, null, null, null); this.node = node; }
+
+        public void accept(visitor.Visitor v) { MethodDeclaration(node).accept(v); }
+        public <R,A> R accept(visitor.GJVisitor<R,A> v, A argu) { return MethodDeclaration(node).accept(v, argu); }
+        public <R> R accept(visitor.GJNoArguVisitor<R> v) { return MethodDeclaration(node).accept(v); }
+        public <A> void accept(visitor.GJVoidVisitor<A> v, A argu) { MethodDeclaration(node).accept(v, argu); }
+    }
+
+    /*------------------------- Declarations -------------------------*/
+
+    /** f0 -> class name , f1 -> argument name , then the variables and statements. */
+    private MainClass MainClass(int node){
+        int className = tree.GetFirstChild(node);
+        int argName = tree.GetNext(className);
+        NodeListOptional vars = new NodeListOptional();
+        NodeListOptional statements = new NodeListOptional();
+        for(int child = tree.GetNext(argName); child >= 0; child = tree.GetNext(child)) {
+            if(tree.GetKind(child) == Kind.VAR_DECLARATION)
+                vars.addNode(VarDeclaration(child));
+            else if(bodies)
+                statements.addNode(Statement(child));
+        }
+        return new MainClass(Identifier(className), Identifier(argName), vars, statements);
+    }
+
+    /** Class name , the extended class name (CLASS_EXTENDS) , then the variables and methods. */
+    private TypeDeclaration TypeDeclaration(int node){
+        int name = tree.GetFirstChild(node);
+        boolean extending = tree.GetKind(node) == Kind.CLASS_EXTENDS;
+        int extendedName = extending ? tree.GetNext(name) : -1;
+        NodeListOptional vars = new NodeListOptional();
+        NodeListOptional methods = new NodeListOptional();
+        for(int child = tree.GetNext(extending ? extendedName : name); child >= 0; child = tree.GetNext(child)) {
+            if(tree.GetKind(child) == Kind.VAR_DECLARATION)
+                vars.addNode(VarDeclaration(child));
+            else
+                methods.addNode(new LazyMethodDeclaration(child));
+        }
+        if(extending)
+            return new TypeDeclaration(new NodeChoice(new ClassExtendsDeclaration(Identifier(name), Identifier(extendedName), vars, methods), 1));
+        return new TypeDeclaration(new NodeChoice(new ClassDeclaration(Identifier(name), vars, methods), 0));
+    }
+
+    /** Type , name. */
+    private VarDeclaration VarDeclaration(int node){
+        int type = tree.GetFirstChild(node);
+        return new VarDeclaration(Type(type), Identifier(tree.GetNext(type)));
+    }
+
+    /** Return type , name , then the parameters , variables , statements and the return expression (last). */
+    private MethodDeclaration MethodDeclaration(int node){
+        int type = tree.GetFirstChild(node);
+        int name = tree.GetNext(type);
+        FormalParameter first = null;
+        NodeListOptional otherParams = new NodeListOptional();
+        NodeListOptional vars = new NodeListOptional();
+        NodeListOptional statements = new NodeListOptional();
+        Expression returned = null;
+        for(int child = tree.GetNext(name); child >= 0; child = tree.GetNext(child)) {
+            Kind kind = tree.GetKind(child);
+            if(kind == Kind.FORMAL_PARAMETER) {
+                int paramType = tree.GetFirstChild(child);
+                FormalParameter param = new FormalParameter(Type(paramType), Identifier(tree.GetNext(paramType)));
+                if(first == null)
+                    first = param;
+                else
+                    otherParams.addNode(new FormalParameterTerm(param));
+            }else if(kind == Kind.VAR_DECLARATION) {
+                vars.addNode(VarDeclaration(child));
+            }else if(!bodies) {
+                break;
+            }else if(tree.GetNext(child) >= 0) {
+                statements.addNode(Statement(child));
+            }else{
+                returned = Expression(child);
+            }
+        }
+        NodeOptional params = (first == null) ? new NodeOptional() : new NodeOptional(new FormalParameterList(first, new FormalParameterTail(otherParams)));
+        return new MethodDeclaration(Type(type), Identifier(name), params, vars, statements, returned);
+    }
+
+    private Type Type(int node){
+        switch (tree.GetKind(node)){
+            case BOOLEAN_ARRAY_TYPE: return new Type(new NodeChoice(new ArrayType(new NodeChoice(new BooleanArrayType(), 0)), 0));
+            case INT_ARRAY_TYPE: return new Type(new NodeChoice(new ArrayType(new NodeChoice(new IntegerArrayType(), 1)), 0));
+            case BOOLEAN_TYPE: return new Type(new NodeChoice(new BooleanType(), 1));
+            case INT_TYPE: return new Type(new NodeChoice(new IntegerType(), 2));
+            default: return new Type(new NodeChoice(Identifier(node), 3));
+        }
+    }
+
+    private Identifier Identifier(int node){
+        return new Identifier(new NodeToken(tree.GetNodeName(node)));
+    }
+
+    /*------------------------- Statements -------------------------*/
+
+    private Statement Statement(int node){
+        int first = tree.GetFirstChild(node);
+        switch (tree.GetKind(node)){
+            case BLOCK:
+                NodeListOptional statements = new NodeListOptional();
+                for(int child = first; child >= 0; child = tree.GetNext(child))
+                    statements.addNode(Statement(child));
+                return new Statement(new NodeChoice(new Block(statements), 0));
+            case ASSIGNMENT:
+                return new Statement(new NodeChoice(new AssignmentStatement(Identifier(first), Expression(tree.GetNext(first))), 1));
+            case ARRAY_ASSIGNMENT:
+                int index = tree.GetNext(first);
+                return new Statement(new NodeChoice(new ArrayAssignmentStatement(Identifier(first), Expression(index), Expression(tree.GetNext(index))), 2));
+            case IF:
+                int then = tree.GetNext(first);
+                return new Statement(new NodeChoice(new IfStatement(Expression(first), Statement(then), Statement(tree.GetNext(then))), 3));
+            case WHILE:
+                return new Statement(new NodeChoice(new WhileStatement(Expression(first), Statement(tree.GetNext(first))), 4));
+            case PRINT:
+                return new Statement(new NodeChoice(new PrintStatement(Expression(first)), 5));
+            default:
+                throw new IllegalStateException(tree.GetKind(node) + " is not a statement.");
+        }
+    }
+
+    /*------------------------- Expressions -------------------------*/
+
+    private Expression Expression(int node){
+        int first = tree.GetFirstChild(node);
+        int second = (first >= 0) ? tree.GetNext(first) : -1;
+        switch (tree.GetKind(node)){
+            case AND: return new Expression(new NodeChoice(new AndExpression(Clause(first), Clause(second)), 0));
+            case COMPARE: return new Expression(new NodeChoice(new CompareExpression(PrimaryExpression(first), PrimaryExpression(second)), 1));
+            case PLUS: return new Expression(new NodeChoice(new PlusExpression(PrimaryExpression(first), PrimaryExpression(second)), 2));
+            case MINUS: return new Expression(new NodeChoice(new MinusExpression(PrimaryExpression(first), PrimaryExpression(second)), 3));
+            case TIMES: return new Expression(new NodeChoice(new TimesExpression(PrimaryExpression(first), PrimaryExpression(second)), 4));
+            case ARRAY_LOOKUP: return new Expression(new NodeChoice(new ArrayLookup(PrimaryExpression(first), PrimaryExpression(second)), 5));
+            case ARRAY_LENGTH: return new Expression(new NodeChoice(new ArrayLength(PrimaryExpression(first)), 6));
+            case MESSAGE_SEND: return new Expression(new NodeChoice(MessageSend(first, second), 7));
+            default: return new Expression(new NodeChoice(Clause(node), 8));
+        }
+    }
+
+    /** Receiver , method name , then the arguments. */
+    private MessageSend MessageSend(int receiver, int name){
+        int firstArg = tree.GetNext(name);
+        NodeOptional args = new NodeOptional();
+        if(firstArg >= 0) {
+            NodeListOptional otherArgs = new NodeListOptional();
+            for(int arg = tree.GetNext(firstArg); arg >= 0; arg = tree.GetNext(arg))
+                otherArgs.addNode(new ExpressionTerm(Expression(arg)));
+            args = new NodeOptional(new ExpressionList(Expression(firstArg), new ExpressionTail(otherArgs)));
+        }
+        return new MessageSend(PrimaryExpression(receiver), Identifier(name), args);
+    }
+
+    private Clause Clause(int node){
+        if(tree.GetKind(node) == Kind.NOT)
+            return new Clause(new NodeChoice(new NotExpression(Clause(tree.GetFirstChild(node))), 0));
+        return new Clause(new NodeChoice(PrimaryExpression(node), 1));
+    }
+
+    private PrimaryExpression PrimaryExpression(int node){
+        int first = tree.GetFirstChild(node);
+        switch (tree.GetKind(node)){
+            case INTEGER_LITERAL: return new PrimaryExpression(new NodeChoice(new IntegerLiteral(new NodeToken(tree.GetNodeName(node))), 0));
+            case TRUE: return new PrimaryExpression(new NodeChoice(new TrueLiteral(), 1));
+            case FALSE: return new PrimaryExpression(new NodeChoice(new FalseLiteral(), 2));
+            case IDENTIFIER: return new PrimaryExpression(new NodeChoice(Identifier(node), 3));
+            case THIS: return new PrimaryExpression(new NodeChoice(new ThisExpression(), 4));
+            case BOOLEAN_ARRAY_ALLOCATION:
+                return new PrimaryExpression(new NodeChoice(new ArrayAllocationExpression(new NodeChoice(new BooleanArrayAllocationExpression(Expression(first)), 0)), 5));
+            case INT_ARRAY_ALLOCATION:
+                return new PrimaryExpression(new NodeChoice(new ArrayAllocationExpression(new NodeChoice(new IntegerArrayAllocationExpression(Expression(first)), 1)), 5));
+            case ALLOCATION: return new PrimaryExpression(new NodeChoice(new AllocationExpression(Identifier(first)), 6));
+            case BRACKET: return new PrimaryExpression(new NodeChoice(new BracketExpression(Expression(first)), 7));
+            default:
+                throw new IllegalStateException(tree.GetKind(node) + " is not a primary expression.");
+        }
+    }
+
+}
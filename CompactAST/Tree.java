@@ -0,0 +1,89 @@
+package CompactAST;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public final class Tree {
+    /*-------------------------------------------------------------
+    * A syntax tree kept in a few parallel arrays instead of one
+    * object per node. A node is an index , with its kind , its
+    * value (the id of an identifier's name or of an integer
+    * literal's image , -1 otherwise) , its first child and its
+    * next sibling (-1 for none). Punctuation and keywords are
+    * not stored , the kind of a node says everything they did ,
+    * and neither are JTB's choice , optional and list wrappers :
+    * lists are just the children of their parent in order.
+    * Names are interned , every distinct identifier is kept once.
+    -------------------------------------------------------------*/
+
+    public enum Kind {
+        GOAL, MAIN_CLASS, CLASS, CLASS_EXTENDS, VAR_DECLARATION, METHOD, FORMAL_PARAMETER,
+        INT_TYPE, BOOLEAN_TYPE, INT_ARRAY_TYPE, BOOLEAN_ARRAY_TYPE,
+        BLOCK, ASSIGNMENT, ARRAY_ASSIGNMENT, IF, WHILE, PRINT,
+        AND, COMPARE, PLUS, MINUS, TIMES, ARRAY_LOOKUP, ARRAY_LENGTH, MESSAGE_SEND,
+        NOT, INTEGER_LITERAL, TRUE, FALSE, IDENTIFIER, THIS,
+        BOOLEAN_ARRAY_ALLOCATION, INT_ARRAY_ALLOCATION, ALLOCATION, BRACKET
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private byte[] kinds = new byte[256];
+    private int[] values = new int[256];
+    private int[] firstChildren = new int[256];
+    private int[] nextSiblings = new int[256];
+    private int size;
+
+    private String[] names = new String[64];
+    private final Map<String,Integer> nameIds = new HashMap<>();
+
+    // A new node whose children are firstChild and its siblings. Children are added before their parent.
+    public int Add(Kind kind, int value, int firstChild){
+        if(size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            values = Arrays.copyOf(values, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        }
+        kinds[size] = (byte)kind.ordinal();
+        values[size] = value;
+        firstChildren[size] = firstChild;
+        nextSiblings[size] = -1;
+        return size++;
+    }
+
+    public void SetNext(int node, int next) { nextSiblings[node] = next; }
+
+    public int Intern(String name){
+        Integer id = nameIds.get(name);
+        if(id == null) {
+            id = nameIds.size();
+            if(id == names.length)
+                names = Arrays.copyOf(names, id * 2);
+            names[id] = name;
+            nameIds.put(name, id);
+        }
+        return id;
+    }
+
+    // Drops the spare capacity and the lookup table once the tree is complete.
+    public void Trim(){
+        kinds = Arrays.copyOf(kinds, size);
+        values = Arrays.copyOf(values, size);
+        firstChildren = Arrays.copyOf(firstChildren, size);
+        nextSiblings = Arrays.copyOf(nextSiblings, size);
+        names = Arrays.copyOf(names, nameIds.size());
+        nameIds.clear();
+    }
+
+    public Kind GetKind(int node) { return KINDS[kinds[node]]; }
+    public int GetValue(int node) { return values[node]; }
+    public int GetFirstChild(int node) { return firstChildren[node]; }
+    public int GetNext(int node) { return nextSiblings[node]; }
+    public String GetName(int id) { return names[id]; }
+    public String GetNodeName(int node) { return names[values[node]]; } //Identifiers and integer literals.
+    public int GetRoot() { return size - 1; } //The goal is added last.
+    public int GetSize() { return size; }
+
+}
@@ -0,0 +1,105 @@
+package CompactAST;
+
+import CompactAST.Tree.Kind;
+
+import java.util.Arrays;
+
+public abstract class TreeWalker<V> {
+    /*-------------------------------------------------------------
+    * Walks the statements and expressions of a Tree with explicit
+    * stacks instead of recursion , so how deep they nest is only
+    * bounded by the heap.
+    * A node is handled in steps : Step is called with step 0 when
+    * the node is reached and again (step 1 , 2 ...) every time the
+    * child it asked for with Visit has returned , with the child's
+    * value on top of the value stack (see Pop) , until it calls
+    * Return with its own value. A step calls Visit last , at most
+    * once , since the child is the current node after it.
+    -------------------------------------------------------------*/
+
+    protected final Tree tree;
+
+    private int[] nodes = new int[64];
+    private int[] steps = new int[64];
+    private int[] cursors = new int[64]; // Next child of every node , see NextChild.
+    private Object[] states = new Object[64];
+    private int depth;
+
+    private Object[] values = new Object[64];
+    private int valueCount;
+
+    protected TreeWalker(Tree tree){
+        this.tree = tree;
+    }
+
+    protected abstract void Step(int node, Kind kind, int step);
+
+    // The value of node , once it and everything under it returned.
+    protected V Walk(int node){
+        int base = depth;
+        Visit(node);
+        while(depth > base) {
+            int top = depth - 1;
+            Step(nodes[top], tree.GetKind(nodes[top]), steps[top]++);
+        }
+        return Pop();
+    }
+
+    protected void Visit(int node){
+        if(depth == nodes.length) {
+            int capacity = depth * 2;
+            nodes = Arrays.copyOf(nodes, capacity);
+            steps = Arrays.copyOf(steps, capacity);
+            cursors = Arrays.copyOf(cursors, capacity);
+            states = Arrays.copyOf(states, capacity);
+        }
+        nodes[depth] = node;
+        steps[depth] = 0;
+        cursors[depth] = tree.GetFirstChild(node);
+        depth++;
+    }
+
+    protected void Return(V value){
+        states[--depth] = null;
+        if(valueCount == values.length)
+            values = Arrays.copyOf(values, valueCount * 2);
+        values[valueCount++] = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected V Pop(){
+        V value = (V)values[--valueCount];
+        values[valueCount] = null;
+        return value;
+    }
+
+    // The children of the current node one by one , -1 after the last.
+    protected int NextChild(){
+        int child = cursors[depth - 1];
+        if(child >= 0)
+            cursors[depth - 1] = tree.GetNext(child);
+        return child;
+    }
+
+    // Anything the current node keeps between its steps.
+    protected Object GetState() { return states[depth - 1]; }
+    protected void SetState(Object state) { states[depth - 1] = state; }
+
+    /*------------------------- Declarations -------------------------*/
+
+    // The first variable or method of a class declaration.
+    protected int GetMembers(int classNode){
+        int name = tree.GetFirstChild(classNode);
+        return tree.GetNext(tree.GetKind(classNode) == Kind.CLASS_EXTENDS ? tree.GetNext(name) : name);
+    }
+
+    // The first statement of the main class or a method , or its return expression if it has none.
+    protected int GetBody(int node){
+        int child = tree.GetNext(tree.GetFirstChild(node)); //Argument name or method name.
+        child = tree.GetNext(child);
+        while(child >= 0 && (tree.GetKind(child) == Kind.FORMAL_PARAMETER || tree.GetKind(child) == Kind.VAR_DECLARATION))
+            child = tree.GetNext(child);
+        return child;
+    }
+
+}
@@ -0,0 +1,466 @@
+import CompactAST.Tree;
+import CompactAST.Tree.Kind;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+public class CompactParser implements MiniJavaParserConstants {
+    /*-------------------------------------------------------------
+    * Parses the tokens of FastTokenManager straight into a
+    * compact Tree , following the productions of minijava.jj
+    * (with the same lookaheads) without building JTB's nodes.
+    * Every production leaves its node on a stack of pending
+    * nodes , a parent takes the nodes left since it started as
+    * its children. Statements and expressions use a stack of
+    * tasks instead of recursion , so any nesting fits.
+    * A source that FastTokenManager can't lex or that has a
+    * syntax error gets null , it is then parsed by
+    * MiniJavaParser so errors are reported exactly as before.
+    -------------------------------------------------------------*/
+
+    private static final int COMMA = LiteralKind(",");
+    private static final int TIMES = LiteralKind("*");
+    private static final Kind[] KINDS = Kind.values();
+
+    // Thrown on the first token that doesn't fit , the position doesn't matter since the source is parsed again.
+    private static final class SyntaxError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        SyntaxError() { super(null, null, false, false); }
+    }
+    private static final SyntaxError ERROR = new SyntaxError();
+
+    private final List<Token> tokens;
+    private int pos;
+    private final Tree tree = new Tree();
+    private int[] pending = new int[64];
+    private int pendingSize;
+
+    private CompactParser(List<Token> tokens){
+        this.tokens = tokens;
+    }
+
+    public static Tree Parse(ByteBuffer source){
+        List<Token> tokens = FastTokenManager.Tokens(source);
+        if(tokens == null)
+            return null;
+        CompactParser parser = new CompactParser(tokens);
+        try {
+            parser.Goal();
+        } catch (SyntaxError e) {
+            return null;
+        }
+        parser.tree.Trim();
+        return parser.tree;
+    }
+
+    private static int LiteralKind(String image){
+        for(int kind = 0; kind < MiniJavaParserTokenManager.jjstrLiteralImages.length; kind++)
+            if(image.equals(MiniJavaParserTokenManager.jjstrLiteralImages[kind]))
+                return kind;
+        throw new IllegalStateException("No token " + image + ".");
+    }
+
+    /*------------------------- Tokens and nodes -------------------------*/
+
+    private int Peek(int ahead){ //The last token is <EOF>.
+        return tokens.get(Math.min(pos + ahead, tokens.size() - 1)).kind;
+    }
+
+    private Token Expect(int kind){
+        if(Peek(0) != kind)
+            throw ERROR;
+        return tokens.get(pos++);
+    }
+
+    private void Push(int node){
+        if(pendingSize == pending.length)
+            pending = Arrays.copyOf(pending, pendingSize * 2);
+        pending[pendingSize++] = node;
+    }
+
+    private void Leaf(Kind kind, int value){
+        Push(tree.Add(kind, value, -1));
+    }
+
+    // A node of the nodes pushed since mark , in order.
+    private void Node(Kind kind, int mark){
+        for(int i = mark; i + 1 < pendingSize; i++)
+            tree.SetNext(pending[i], pending[i + 1]);
+        int firstChild = (pendingSize > mark) ? pending[mark] : -1;
+        pendingSize = mark;
+        Push(tree.Add(kind, -1, firstChild));
+    }
+
+    private Kind LastKind() { return tree.GetKind(pending[pendingSize - 1]); }
+
+    /*------------------------- Declarations -------------------------*/
+
+    private void Goal(){
+        int mark = pendingSize;
+        MainClass();
+        while(Peek(0) == CLASS)
+            TypeDeclaration();
+        Expect(EOF);
+        Node(Kind.GOAL, mark);
+    }
+
+    private void MainClass(){
+        int mark = pendingSize;
+        Expect(CLASS);
+        Identifier();
+        Expect(LBRACE);
+        Expect(PUBLIC);
+        Expect(STATIC);
+        Expect(VOID);
+        Expect(MAIN);
+        Expect(LPAREN);
+        Expect(STRING);
+        Expect(LSQPAREN);
+        Expect(RSQPAREN);
+        Identifier();
+        Expect(RPAREN);
+        Expect(LBRACE);
+        while(IsVarDeclaration())
+            VarDeclaration();
+        while(Peek(0) != RBRACE)
+            Statement();
+        Expect(RBRACE);
+        Expect(RBRACE);
+        Node(Kind.MAIN_CLASS, mark);
+    }
+
+    private void TypeDeclaration(){ //LOOKAHEAD(3) ClassDeclaration.
+        boolean extending = !(Peek(1) == IDENTIFIER && Peek(2) == LBRACE);
+        int mark = pendingSize;
+        Expect(CLASS);
+        Identifier();
+        if(extending) {
+            Expect(EXTENDS);
+            Identifier();
+        }
+        Expect(LBRACE);
+        while(Peek(0) == INTEGER || Peek(0) == BOOLEAN || Peek(0) == IDENTIFIER)
+            VarDeclaration();
+        while(Peek(0) == PUBLIC)
+            MethodDeclaration();
+        Expect(RBRACE);
+        Node(extending ? Kind.CLASS_EXTENDS : Kind.CLASS, mark);
+    }
+
+    private boolean IsVarDeclaration(){ //LOOKAHEAD(2) VarDeclaration.
+        return Peek(0) == INTEGER || Peek(0) == BOOLEAN || (Peek(0) == IDENTIFIER && Peek(1) == IDENTIFIER);
+    }
+
+    private void VarDeclaration(){
+        int mark = pendingSize;
+        Type();
+        Identifier();
+        Expect(SEMICOLON);
+        Node(Kind.VAR_DECLARATION, mark);
+    }
+
+    private void MethodDeclaration(){
+        int mark = pendingSize;
+        Expect(PUBLIC);
+        Type();
+        Identifier();
+        Expect(LPAREN);
+        if(Peek(0) == INTEGER || Peek(0) == BOOLEAN || Peek(0) == IDENTIFIER) {
+            FormalParameter();
+            while(Peek(0) == COMMA) {
+                pos++;
+                FormalParameter();
+            }
+        }
+        Expect(RPAREN);
+        Expect(LBRACE);
+        while(IsVarDeclaration())
+            VarDeclaration();
+        while(Peek(0) != RETURN)
+            Statement();
+        Expect(RETURN);
+        Expression(); //Always the last child.
+        Expect(SEMICOLON);
+        Expect(RBRACE);
+        Node(Kind.METHOD, mark);
+    }
+
+    private void FormalParameter(){
+        int mark = pendingSize;
+        Type();
+        Identifier();
+        Node(Kind.FORMAL_PARAMETER, mark);
+    }
+
+    private void Type(){
+        int kind = Peek(0);
+        if((kind == INTEGER || kind == BOOLEAN) && Peek(1) == LSQPAREN && Peek(2) == RSQPAREN) { //LOOKAHEAD(3) ArrayType.
+            pos += 3;
+            Leaf(kind == INTEGER ? Kind.INT_ARRAY_TYPE : Kind.BOOLEAN_ARRAY_TYPE, -1);
+        }else if(kind == INTEGER || kind == BOOLEAN) {
+            pos++;
+            Leaf(kind == INTEGER ? Kind.INT_TYPE : Kind.BOOLEAN_TYPE, -1);
+        }else{
+            Identifier();
+        }
+    }
+
+    private void Identifier(){
+        Leaf(Kind.IDENTIFIER, tree.Intern(Expect(IDENTIFIER).image));
+    }
+
+    /*------------------------- Statements and expressions -------------------------*/
+
+    // Statements and expressions nest without a limit , so they are parsed with a stack of tasks instead of
+    // recursion. A task is a production to start (STATEMENT , EXPRESSION , CLAUSE , PRIMARY) or the rest of
+    // one whose child was just parsed , with the kind of node it ends with and the mark where it started.
+    private static final int STATEMENT = 0;
+    private static final int EXPRESSION = 1;
+    private static final int CLAUSE = 2;
+    private static final int PRIMARY = 3;
+    private static final int END = 4;                   // The node.
+    private static final int END_RPAREN = 5;            // ")" , the node.
+    private static final int END_RSQPAREN = 6;          // "]" , the node.
+    private static final int END_SEMICOLON = 7;         // ";" , the node.
+    private static final int END_RPAREN_SEMICOLON = 8;  // ")" ";" , the node.
+    private static final int BLOCK_NEXT = 9;            // The next statement of a block or its "}".
+    private static final int ARRAY_ASSIGNMENT_VALUE = 10;
+    private static final int IF_THEN = 11;
+    private static final int IF_ELSE = 12;
+    private static final int WHILE_BODY = 13;
+    private static final int OPERATOR = 14;             // What follows the first clause of an expression.
+    private static final int ARGUMENT_NEXT = 15;        // The next argument of a call or its ")".
+
+    private int[] tasks = new int[96]; // op , kind , mark.
+    private int taskSize;
+
+    private void Task(int op, Kind kind, int mark){
+        if(taskSize == tasks.length)
+            tasks = Arrays.copyOf(tasks, taskSize * 2);
+        tasks[taskSize++] = op;
+        tasks[taskSize++] = kind.ordinal();
+        tasks[taskSize++] = mark;
+    }
+
+    private void Task(int op) { Task(op, Kind.GOAL, -1); } //Productions get their mark when they start.
+
+    private void Statement() { Run(STATEMENT); }
+    private void Expression() { Run(EXPRESSION); }
+
+    private void Run(int production){
+        int base = taskSize;
+        Task(production);
+        while(taskSize > base) {
+            taskSize -= 3;
+            int op = tasks[taskSize];
+            Kind kind = KINDS[tasks[taskSize + 1]];
+            int mark = tasks[taskSize + 2];
+            switch (op){
+                case STATEMENT: StartStatement(); break;
+                case EXPRESSION:
+                    Task(OPERATOR, Kind.GOAL, pendingSize);
+                    Task(CLAUSE);
+                    break;
+                case CLAUSE:
+                    if(Peek(0) == NOT) {
+                        Task(END, Kind.NOT, pendingSize);
+                        pos++;
+                        Task(CLAUSE);
+                    }else{
+                        StartPrimaryExpression();
+                    }
+                    break;
+                case PRIMARY: StartPrimaryExpression(); break;
+                case END_RPAREN_SEMICOLON:
+                    Expect(RPAREN);
+                    Expect(SEMICOLON);
+                    Node(kind, mark);
+                    break;
+                case END_RPAREN: Expect(RPAREN); Node(kind, mark); break;
+                case END_RSQPAREN: Expect(RSQPAREN); Node(kind, mark); break;
+                case END_SEMICOLON: Expect(SEMICOLON); Node(kind, mark); break;
+                case END: Node(kind, mark); break;
+                case BLOCK_NEXT:
+                    if(Peek(0) == RBRACE) {
+                        pos++;
+                        Node(Kind.BLOCK, mark);
+                    }else{
+                        Task(BLOCK_NEXT, Kind.BLOCK, mark);
+                        Task(STATEMENT);
+                    }
+                    break;
+                case ARRAY_ASSIGNMENT_VALUE:
+                    Expect(RSQPAREN);
+                    Expect(ASSIGN);
+                    Task(END_SEMICOLON, Kind.ARRAY_ASSIGNMENT, mark);
+                    Task(EXPRESSION);
+                    break;
+                case IF_THEN:
+                    Expect(RPAREN);
+                    Task(IF_ELSE, Kind.IF, mark);
+                    Task(STATEMENT);
+                    break;
+                case IF_ELSE:
+                    Expect(ELSE);
+                    Task(END, Kind.IF, mark);
+                    Task(STATEMENT);
+                    break;
+                case WHILE_BODY:
+                    Expect(RPAREN);
+                    Task(END, Kind.WHILE, mark);
+                    Task(STATEMENT);
+                    break;
+                case OPERATOR: Operator(mark); break;
+                case ARGUMENT_NEXT:
+                    if(Peek(0) == COMMA) {
+                        pos++;
+                        Task(ARGUMENT_NEXT, Kind.MESSAGE_SEND, mark);
+                        Task(EXPRESSION);
+                    }else{
+                        Expect(RPAREN);
+                        Node(Kind.MESSAGE_SEND, mark);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown task " + op + ".");
+            }
+        }
+    }
+
+    private void StartStatement(){
+        int mark = pendingSize;
+        switch (Peek(0)){
+            case LBRACE:
+                pos++;
+                Task(BLOCK_NEXT, Kind.BLOCK, mark);
+                break;
+            case IDENTIFIER:
+                if(Peek(1) == ASSIGN) {
+                    Identifier();
+                    pos++;
+                    Task(END_SEMICOLON, Kind.ASSIGNMENT, mark);
+                }else if(Peek(1) == LSQPAREN) {
+                    Identifier();
+                    pos++;
+                    Task(ARRAY_ASSIGNMENT_VALUE, Kind.ARRAY_ASSIGNMENT, mark);
+                }else{
+                    throw ERROR;
+                }
+                Task(EXPRESSION);
+                break;
+            case IF:
+                pos++;
+                Expect(LPAREN);
+                Task(IF_THEN, Kind.IF, mark);
+                Task(EXPRESSION);
+                break;
+            case WHILE:
+                pos++;
+                Expect(LPAREN);
+                Task(WHILE_BODY, Kind.WHILE, mark);
+                Task(EXPRESSION);
+                break;
+            case PRINT:
+                pos++;
+                Expect(LPAREN);
+                Task(END_RPAREN_SEMICOLON, Kind.PRINT, mark);
+                Task(EXPRESSION);
+                break;
+            default:
+                throw ERROR;
+        }
+    }
+
+    // The first clause of an expression was parsed , the operator that follows it (if any) decides the
+    // expression like the syntactic lookaheads of Expression do. Only an "&&" may follow a "!" clause.
+    private void Operator(int mark){
+        int kind = Peek(0);
+        if(kind == AND) {
+            pos++;
+            Task(END, Kind.AND, mark);
+            Task(CLAUSE);
+            return;
+        }
+        if(LastKind() == Kind.NOT)
+            return;
+        if(kind == LT || kind == PLUS || kind == MINUS || kind == TIMES) {
+            pos++;
+            Task(END, kind == LT ? Kind.COMPARE : kind == PLUS ? Kind.PLUS : kind == MINUS ? Kind.MINUS : Kind.TIMES, mark);
+            Task(PRIMARY);
+        }else if(kind == LSQPAREN) {
+            pos++;
+            Task(END_RSQPAREN, Kind.ARRAY_LOOKUP, mark);
+            Task(PRIMARY);
+        }else if(kind == DOT && Peek(1) == LENGTH) {
+            pos += 2;
+            Node(Kind.ARRAY_LENGTH, mark);
+        }else if(kind == DOT && Peek(1) == IDENTIFIER && Peek(2) == LPAREN) {
+            pos++;
+            Identifier();
+            pos++;
+            if(IsExpressionStart()) {
+                Task(ARGUMENT_NEXT, Kind.MESSAGE_SEND, mark);
+                Task(EXPRESSION);
+            }else{
+                Expect(RPAREN);
+                Node(Kind.MESSAGE_SEND, mark);
+            }
+        }
+    }
+
+    private boolean IsExpressionStart(){
+        switch (Peek(0)){
+            case INTEGER_LITERAL: case TRUE: case FALSE: case IDENTIFIER: case THIS: case NEW: case LPAREN: case NOT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void StartPrimaryExpression(){
+        int mark = pendingSize;
+        switch (Peek(0)){
+            case INTEGER_LITERAL:
+                Leaf(Kind.INTEGER_LITERAL, tree.Intern(tokens.get(pos++).image));
+                break;
+            case TRUE:
+                pos++;
+                Leaf(Kind.TRUE, -1);
+                break;
+            case FALSE:
+                pos++;
+                Leaf(Kind.FALSE, -1);
+                break;
+            case IDENTIFIER:
+                Identifier();
+                break;
+            case THIS:
+                pos++;
+                Leaf(Kind.THIS, -1);
+                break;
+            case NEW:
+                if((Peek(1) == BOOLEAN || Peek(1) == INTEGER) && Peek(2) == LSQPAREN) { //LOOKAHEAD(3) ArrayAllocationExpression.
+                    Kind kind = (Peek(1) == BOOLEAN) ? Kind.BOOLEAN_ARRAY_ALLOCATION : Kind.INT_ARRAY_ALLOCATION;
+                    pos += 3;
+                    Task(END_RSQPAREN, kind, mark);
+                    Task(EXPRESSION);
+                }else{
+                    pos++;
+                    Identifier();
+                    Expect(LPAREN);
+                    Expect(RPAREN);
+                    Node(Kind.ALLOCATION, mark);
+                }
+                break;
+            case LPAREN:
+                pos++;
+                Task(END_RPAREN, Kind.BRACKET, mark);
+                Task(EXPRESSION);
+                break;
+            default:
+                throw ERROR;
+        }
+    }
+
+}
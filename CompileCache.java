@@ -0,0 +1,173 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public class CompileCache {
+    /*----------------------------------------------------------------
+    * Skips compilations whose output is already known.
+    * A compilation is identified by a sha-256 key of the compiler's
+    * own classes , the options that change the output and the bytes
+    * of the source file.
+    *   - Every .ll starts with a comment holding its key , so a .ll
+    *     that is already up to date is left untouched.
+    *   - With a cache directory (--cache DIR) every successful
+    *     output is also kept as DIR/<key>.ll and copied back when
+    *     the same source is compiled again , e.g. after a checkout.
+    * Failed compilations are never cached , their messages have to
+    * be printed every time.
+    ----------------------------------------------------------------*/
+
+    public static final String HEADER = "; minijava source hash ";
+
+    private final Path dir; //Null without a cache directory.
+    private final String options;
+
+    public CompileCache(Path dir, String options){
+        this.dir = dir;
+        this.options = options;
+    }
+
+    public String Key(ByteBuffer source){
+        MessageDigest digest = Sha256();
+        digest.update(CompilerVersion.VALUE.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte)0);
+        digest.update(options.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte)0);
+        digest.update(source.duplicate());
+        return Hex(digest.digest());
+    }
+
+    // The .ll was generated by this compiler , with these options , from this source.
+    public static boolean IsUpToDate(Path target, String key){
+        if(!Files.isRegularFile(target))
+            return false;
+        try (BufferedReader reader = Files.newBufferedReader(target, StandardCharsets.UTF_8)) {
+            String first = reader.readLine();
+            return first != null && first.equals(HEADER + key);
+        } catch (IOException e) {
+            return false; //Recompiled.
+        }
+    }
+
+    // Deletes a .ll generated by an older compilation. Files without the header were not written by us and are kept.
+    public static void DeleteStale(Path target){
+        if(!Files.isRegularFile(target))
+            return;
+        try {
+            boolean ours;
+            try (BufferedReader reader = Files.newBufferedReader(target, StandardCharsets.UTF_8)) {
+                String first = reader.readLine();
+                ours = first != null && first.startsWith(HEADER);
+            }
+            if(ours)
+                Files.delete(target);
+        } catch (IOException e) {
+            //Left as is.
+        }
+    }
+
+    // Copies a cached output to target. Returns false if there is none.
+    public boolean Restore(String key, Path target){
+        if(dir == null)
+            return false;
+        Path cached = dir.resolve(key + ".ll");
+        if(!Files.isRegularFile(cached))
+            return false;
+        try {
+            CopyAtomically(cached, target);
+            return true;
+        } catch (IOException e) {
+            return false; //Recompiled.
+        }
+    }
+
+    public void Store(String key, Path target){
+        if(dir == null)
+            return;
+        try {
+            Files.createDirectories(dir);
+            CopyAtomically(target, dir.resolve(key + ".ll"));
+        } catch (IOException e) {
+            //The cache is only an optimization , the .ll itself was written.
+        }
+    }
+
+    // Readers (and other compilers sharing the directory) only ever see complete files. The copy gets the
+    // default permissions , not the owner only ones of Files.createTempFile or those of an older file.
+    private static void CopyAtomically(Path from, Path to) throws IOException {
+        Path temp = to.toAbsolutePath().resolveSibling(to.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW)) {
+                Files.copy(from, out);
+            }
+            Files.move(temp, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static MessageDigest Sha256(){
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); //Every jvm has sha-256.
+        }
+    }
+
+    private static String Hex(byte[] bytes){
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for(byte b : bytes)
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        return hex.toString();
+    }
+
+    // Hash of the compiler's class files (or jar) , computed once. A rebuilt compiler invalidates every key.
+    // Every .class under the code source is hashed , whatever its package , so a new package can't be missed.
+    private static class CompilerVersion {
+        static final String VALUE = Compute();
+
+        private static String Compute(){
+            MessageDigest digest = Sha256();
+            try {
+                CodeSource source = CompileCache.class.getProtectionDomain().getCodeSource();
+                Path location = Paths.get(source.getLocation().toURI());
+                if(Files.isDirectory(location)) {
+                    for(Path classFile : ClassFiles(location)) {
+                        digest.update(location.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+                        digest.update(Files.readAllBytes(classFile));
+                    }
+                }else{
+                    try (InputStream jar = Files.newInputStream(location)) {
+                        digest.update(jar.readAllBytes());
+                    }
+                }
+                return Hex(digest.digest());
+            } catch (IOException | URISyntaxException | RuntimeException e) {
+                return UUID.randomUUID().toString(); //Unknown compiler , nothing from other runs is reused.
+            }
+        }
+
+        private static List<Path> ClassFiles(Path dir) throws IOException {
+            List<Path> files = new ArrayList<>();
+            try (Stream<Path> entries = Files.walk(dir)) {
+                entries.filter(p -> p.getFileName().toString().endsWith(".class") && Files.isRegularFile(p)).forEach(files::add);
+            }
+            Collections.sort(files);
+            return files;
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+import LLVM_Generation.Allocator;
+import LLVM_Generation.Passes.PassManager;
+
+import java.nio.file.Path;
+
+public class CompileOptions {
+    /*------------------------------------------------------
+    * Settings shared by every file of a run. The ones that
+    * change the generated code are part of the cache key.
+    ------------------------------------------------------*/
+
+    private final PassManager passes;
+    private final Allocator allocator;
+    private final CompileCache cache;
+    private final boolean stackSafe; //Doesn't change the generated code.
+    private final boolean stream; //Neither does this one.
+    private final boolean parallelTypeCheck; //Nor this one.
+
+    // Throws IllegalArgumentException when stream is combined with passes , which need the whole module.
+    public CompileOptions(PassManager passes, Allocator allocator, Path cacheDir, boolean stackSafe, boolean stream,
+                          boolean parallelTypeCheck){
+        if(stream && !passes.IsEmpty())
+            throw new IllegalArgumentException("--stream can't be used with optimization passes.");
+        this.passes = passes;
+        this.allocator = allocator;
+        this.stackSafe = stackSafe;
+        this.stream = stream;
+        this.parallelTypeCheck = parallelTypeCheck;
+        this.cache = new CompileCache(cacheDir, "passes=" + passes + " alloc=" + allocator.GetName());
+    }
+
+    public PassManager GetPasses() { return passes; }
+    public Allocator GetAllocator() { return allocator; }
+    public CompileCache GetCache() { return cache; }
+    public boolean IsStackSafe() { return stackSafe; }
+    public boolean IsStreaming() { return stream; }
+    public boolean IsParallelTypeCheck() { return parallelTypeCheck; }
+
+}
@@ -0,0 +1,280 @@
+import syntaxtree.Node;
+import syntaxtree.NodeChoice;
+import syntaxtree.NodeListInterface;
+import syntaxtree.NodeOptional;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class CompileStats {
+    /*-------------------------------------------------------------
+    * Metrics of one compiled file (--stats / --stats-json).
+    * Every phase gets its wall time and the bytes allocated by
+    * the compiling thread , the file gets the size of its syntax
+    * tree , symbol table and generated module.
+    * A disabled instance ignores every call so the driver does
+    * not need to check for it.
+    -------------------------------------------------------------*/
+
+    public enum Phase {
+        PARSE("parse"), INIT("init"), TYPECHECK("typecheck"), GENERATE("generate"), OPTIMIZE("optimize"), PRINT("print");
+
+        private final String name;
+        Phase(String name) { this.name = name; }
+        public String GetName() { return name; }
+    }
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final String file;
+    private final boolean enabled;
+    private final long[] times;      //ns , -1 if the phase never ran.
+    private final long[] allocated;  //bytes , -1 if unknown.
+    private long astNodes = -1;
+    private long symbols = -1;
+    private long instructions = -1;
+    private boolean success;
+    private boolean cached; //Skipped , the .ll was up to date or restored from the cache.
+
+    private Phase current;
+    private long phaseStart;
+    private long phaseAllocStart;
+
+    public CompileStats(String file, boolean enabled){
+        this.file = file;
+        this.enabled = enabled;
+        this.times = new long[Phase.values().length];
+        this.allocated = new long[Phase.values().length];
+        Arrays.fill(times, -1);
+        Arrays.fill(allocated, -1);
+    }
+
+    public boolean IsEnabled() { return enabled; }
+    public String GetFile() { return file; }
+    public boolean GetSuccess() { return success; }
+    public long GetTime(Phase phase) { return times[phase.ordinal()]; }
+    public long GetAllocated(Phase phase) { return allocated[phase.ordinal()]; }
+    public long GetAstNodes() { return astNodes; }
+    public long GetSymbols() { return symbols; }
+    public long GetInstructions() { return instructions; }
+
+    public void SetSuccess(boolean success) { this.success = success; }
+    public void SetCached(boolean cached) { this.cached = cached; }
+    public boolean GetCached() { return cached; }
+    public void SetAstNodes(long astNodes) { this.astNodes = astNodes; } //Nodes of a compact tree.
+    public void SetSymbols(long symbols) { this.symbols = symbols; }
+    public void SetInstructions(long instructions) { this.instructions = instructions; }
+
+    // Starts measuring a phase , ending the current one. A phase that runs again adds to its totals (--stream
+    // alternates between type checking , generating and printing).
+    public void Start(Phase phase){
+        if(!enabled)
+            return;
+        End();
+        current = phase;
+        phaseAllocStart = AllocatedBytes();
+        phaseStart = System.nanoTime();
+    }
+
+    // Ends the current phase , if any. Also called when a phase throws so the time spent until the error is kept.
+    public void End(){
+        if(!enabled || current == null)
+            return;
+        long elapsed = System.nanoTime() - phaseStart;
+        long alloc = AllocatedBytes();
+        times[current.ordinal()] = Sum(times[current.ordinal()], elapsed);
+        allocated[current.ordinal()] = (alloc < 0 || phaseAllocStart < 0) ? -1 : Sum(allocated[current.ordinal()], alloc - phaseAllocStart);
+        current = null;
+    }
+
+    private static long AllocatedBytes(){
+        if(threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean)threads;
+            if(hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled())
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /*------------------------- Syntax tree size -------------------------*/
+
+    private static final Map<Class<?>,List<Field>> nodeFields = new ConcurrentHashMap<>();
+
+    // Every node of the tree , tokens included. The generated node classes keep their children in public
+    // fields (f0 , f1 ...) so they are found by reflection instead of a visit method per production.
+    public void CountNodes(Node root){
+        if(!enabled)
+            return;
+        long count = 0;
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while(!stack.isEmpty()){
+            Node node = stack.pop();
+            count++;
+            if(node instanceof NodeListInterface) {
+                for(Enumeration<Node> e = ((NodeListInterface)node).elements(); e.hasMoreElements(); )
+                    stack.push(e.nextElement());
+            }else if(node instanceof NodeOptional) {
+                if(((NodeOptional)node).present())
+                    stack.push(((NodeOptional)node).node);
+            }else if(node instanceof NodeChoice) {
+                stack.push(((NodeChoice)node).choice);
+            }else{
+                for(Field field : NodeFields(node.getClass())) {
+                    try {
+                        Node child = (Node)field.get(node);
+                        if(child != null)
+                            stack.push(child);
+                    } catch (IllegalAccessException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+        }
+        astNodes = count;
+    }
+
+    private static List<Field> NodeFields(Class<?> nodeClass){
+        return nodeFields.computeIfAbsent(nodeClass, c -> {
+            List<Field> fields = new ArrayList<>();
+            for(Field field : c.getFields())
+                if(!Modifier.isStatic(field.getModifiers()) && Node.class.isAssignableFrom(field.getType()))
+                    fields.add(field);
+            return fields;
+        });
+    }
+
+    /*------------------------- Reports -------------------------*/
+
+    // One line per file and the totals of the run.
+    public static void PrintSummary(List<CompileStats> files, long wallTime, PrintStream out){
+        CompileStats total = Total(files);
+        for(CompileStats stats : files)
+            stats.PrintLine(stats.file, out);
+        total.PrintLine("total (" + files.size() + " files, " + Failed(files) + " failed, " + Cached(files) + " cached, "
+                + Millis(wallTime) + " ms wall)", out);
+    }
+
+    private void PrintLine(String title, PrintStream out){
+        StringBuilder line = new StringBuilder(title).append(':');
+        if(cached)
+            line.append(" cached");
+        for(Phase phase : Phase.values()) {
+            if(times[phase.ordinal()] < 0)
+                continue;
+            line.append(' ').append(phase.GetName()).append(' ').append(Millis(times[phase.ordinal()])).append(" ms");
+            if(allocated[phase.ordinal()] >= 0)
+                line.append(" / ").append(allocated[phase.ordinal()] / 1024).append(" KB");
+        }
+        line.append(" | nodes ").append(astNodes).append(" symbols ").append(symbols)
+                .append(" instructions ").append(instructions);
+        out.println(line);
+    }
+
+    public static String ToJson(List<CompileStats> files, long wallTime){
+        StringBuilder json = new StringBuilder("{\n  \"files\": [");
+        for(int i = 0; i < files.size(); i++) {
+            json.append(i == 0 ? "\n" : ",\n").append("    ");
+            files.get(i).AppendJson(json);
+        }
+        json.append("\n  ],\n  \"total\": ");
+        Total(files).AppendJson(json);
+        json.setLength(json.length() - 1); //Drops the closing brace to add the run fields.
+        json.append(", \"fileCount\": ").append(files.size())
+                .append(", \"failed\": ").append(Failed(files))
+                .append(", \"cachedFiles\": ").append(Cached(files))
+                .append(", \"wallTimeMs\": ").append(Millis(wallTime))
+                .append("}\n}\n");
+        return json.toString();
+    }
+
+    private void AppendJson(StringBuilder json){
+        json.append('{');
+        if(file != null) { //Null for the totals.
+            json.append("\"file\": ");
+            JsonString(file, json);
+            json.append(", ");
+        }
+        json.append("\"success\": ").append(success).append(", \"cached\": ").append(cached).append(", \"phases\": {");
+        boolean first = true;
+        for(Phase phase : Phase.values()) {
+            if(times[phase.ordinal()] < 0)
+                continue;
+            if(!first)
+                json.append(", ");
+            first = false;
+            json.append('"').append(phase.GetName()).append("\": {\"timeMs\": ").append(Millis(times[phase.ordinal()]))
+                    .append(", \"allocatedBytes\": ").append(allocated[phase.ordinal()]).append('}');
+        }
+        json.append("}, \"astNodes\": ").append(astNodes)
+                .append(", \"symbols\": ").append(symbols)
+                .append(", \"instructions\": ").append(instructions).append('}');
+    }
+
+    private static void JsonString(String value, StringBuilder json){
+        json.append('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == '"' || c == '\\')
+                json.append('\\').append(c);
+            else if(c < 0x20)
+                json.append(String.format("\\u%04x", (int)c));
+            else
+                json.append(c);
+        }
+        json.append('"');
+    }
+
+    private static CompileStats Total(List<CompileStats> files){
+        CompileStats total = new CompileStats(null, true);
+        total.success = Failed(files) == 0;
+        for(CompileStats stats : files) {
+            for(int i = 0; i < total.times.length; i++) {
+                total.times[i] = Sum(total.times[i], stats.times[i]);
+                total.allocated[i] = Sum(total.allocated[i], stats.allocated[i]);
+            }
+            total.astNodes = Sum(total.astNodes, stats.astNodes);
+            total.symbols = Sum(total.symbols, stats.symbols);
+            total.instructions = Sum(total.instructions, stats.instructions);
+        }
+        return total;
+    }
+
+    private static long Sum(long total, long value){ //-1 means missing.
+        if(value < 0)
+            return total;
+        return (total < 0) ? value : total + value;
+    }
+
+    private static int Failed(List<CompileStats> files){
+        int failed = 0;
+        for(CompileStats stats : files)
+            if(!stats.success)
+                failed++;
+        return failed;
+    }
+
+    private static int Cached(List<CompileStats> files){
+        int cached = 0;
+        for(CompileStats stats : files)
+            if(stats.cached)
+                cached++;
+        return cached;
+    }
+
+    private static String Millis(long nanos){
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+}
@@ -0,0 +1,75 @@
+import java.io.*;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CompilerClient {
+    /*---------------------------------------------------------------
+    * Thin client of CompilerServer (java Main --client SOCKET args).
+    * Relative file paths are made absolute , the request is sent and
+    * the server's messages are printed as if the compiler ran here.
+    * If no server is listening the files are compiled in process.
+    ---------------------------------------------------------------*/
+
+    public static int Send(String[] args){
+        String socket = args[1];
+        List<String> request = new ArrayList<>();
+        for(int i = 2; i < args.length; i++) {
+            String arg = args[i];
+            if(arg.equals("-j") || arg.equals("--passes") || arg.equals("--inline-budget") || arg.equals("--alloc") || arg.equals("--stats-json") || arg.equals("--cache")) { // Options with a value.
+                request.add(arg);
+                if(i + 1 < args.length) {
+                    i++;
+                    boolean path = arg.equals("--stats-json") || arg.equals("--cache");
+                    request.add(path ? Absolute(args[i]) : args[i]);
+                }
+            }else if(arg.startsWith("-")) {
+                request.add(arg);
+            }else{
+                request.add(Absolute(arg));
+            }
+        }
+
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+        } catch (IOException e) { // No server.
+            if(request.size() == 1 && request.get(0).equals(CompilerServer.STOP))
+                return 0;
+            return Main.Run(request.toArray(new String[0]), System.out, System.err);
+        }
+
+        try (SocketChannel server = channel) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(server), StandardCharsets.UTF_8));
+            for(String arg : request)
+                out.write(arg + "\n");
+            out.write("\n");
+            out.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(server), StandardCharsets.UTF_8));
+            String line;
+            while((line = in.readLine()) != null) {
+                if(line.startsWith("out "))
+                    System.out.println(line.substring(4));
+                else if(line.startsWith("err "))
+                    System.err.println(line.substring(4));
+                else if(line.startsWith("exit "))
+                    return Integer.parseInt(line.substring(5).trim());
+            }
+            System.err.println("The server closed the connection.");
+            return 1;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Request failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static String Absolute(String path){
+        return Paths.get(path).toAbsolutePath().toString();
+    }
+
+}
@@ -0,0 +1,147 @@
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class CompilerServer {
+    /*----------------------------------------------------------------
+    * Long running compiler (java Main --server SOCKET [-j N]).
+    * Listens on a unix domain socket so the jvm , the parser and the
+    * visitors stay loaded and jitted between compilations.
+    *
+    * Protocol (utf-8 lines):
+    *   request  : the same arguments as the command line , one per
+    *              line , ended by an empty line. File paths must be
+    *              absolute , the server does not know the client's
+    *              working directory. A single "--stop" line stops
+    *              the server.
+    *   response : "out <line>" and "err <line>" for the messages the
+    *              compiler would print , then "exit <status>".
+    * Every request runs Main.Run with its own parser , symbol table
+    * and visitors , so concurrent requests share no compiler state.
+    * Up to N requests (default : number of cores) run at once.
+    ----------------------------------------------------------------*/
+
+    public static final String STOP = "--stop";
+
+    private final Path socketPath;
+    private final ExecutorService pool;
+    private volatile boolean running = true;
+
+    private CompilerServer(Path socketPath, int jobs){
+        this.socketPath = socketPath;
+        this.pool = Executors.newFixedThreadPool(jobs);
+    }
+
+    public static void Serve(String[] args){
+        int jobs = Runtime.getRuntime().availableProcessors();
+        for(int i = 2; i < args.length; i++) {
+            if(args[i].equals("-j") && i + 1 < args.length)
+                jobs = Main.ParseJobs(args[++i], System.err);
+            else if(args[i].startsWith("-j") && args[i].length() > 2)
+                jobs = Main.ParseJobs(args[i].substring(2), System.err);
+            else
+                System.err.println("Ignoring server argument " + args[i] + ".");
+            if(jobs == 0)
+                System.exit(1);
+        }
+
+        CompilerServer server = new CompilerServer(Paths.get(args[1]), jobs);
+        try {
+            server.Listen();
+        } catch (IOException e) {
+            System.err.println("Server error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private void Listen() throws IOException {
+        Files.deleteIfExists(socketPath); // Left behind by a server that was killed.
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            System.err.println("Listening on " + socketPath + ".");
+            while(true){
+                SocketChannel client = server.accept();
+                if(!running) {
+                    client.close();
+                    break;
+                }
+                pool.execute(() -> Handle(client));
+            }
+        } finally {
+            pool.shutdown(); // Requests already accepted still finish.
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    private void Handle(SocketChannel client){
+        try (SocketChannel channel = client) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            Writer response = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+
+            List<String> args = new ArrayList<>();
+            String line;
+            while((line = in.readLine()) != null && !line.isEmpty())
+                args.add(line);
+
+            if(args.size() == 1 && args.get(0).equals(STOP)) {
+                response.write("exit 0\n");
+                response.flush();
+                Stop();
+                return;
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            int status;
+            try (PrintStream outStream = new PrintStream(out, true, StandardCharsets.UTF_8);
+                 PrintStream errStream = new PrintStream(err, true, StandardCharsets.UTF_8)) {
+                try {
+                    status = Main.Run(args.toArray(new String[0]), outStream, errStream);
+                } catch (RuntimeException | StackOverflowError | TokenMgrError e) { // A bad request must not bring the server down.
+                    errStream.println(e);
+                    status = 1;
+                }
+            }
+
+            WriteLines("out ", out, response);
+            WriteLines("err ", err, response);
+            response.write("exit " + status + "\n");
+            response.flush();
+        } catch (IOException e) {
+            System.err.println("Request failed: " + e.getMessage());
+        }
+    }
+
+    private static void WriteLines(String prefix, ByteArrayOutputStream text, Writer response) throws IOException {
+        if(text.size() == 0)
+            return;
+        String[] lines = text.toString(StandardCharsets.UTF_8).split("\n", -1);
+        int count = lines.length;
+        if(lines[count - 1].isEmpty()) // Text ending with a newline.
+            count--;
+        for(int i = 0; i < count; i++)
+            response.write(prefix + lines[i] + "\n");
+    }
+
+    // Accept blocks , so a last connection is made to wake it up.
+    private void Stop(){
+        running = false;
+        try (SocketChannel wake = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            wake.shutdownOutput();
+        } catch (IOException ignored) {
+            // Already closed.
+        }
+    }
+
+}
@@ -0,0 +1,275 @@
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FastTokenManager extends MiniJavaParserTokenManager {
+    /*-------------------------------------------------------------
+    * Lexes ASCII sources straight from their bytes (a mapped
+    * file) instead of going through the char stream of the
+    * generated token manager , which decodes every character and
+    * checks it for unicode escapes. The tokens are the ones of
+    * the TOKEN sections of minijava.jj , with the same kinds ,
+    * images , lines and columns (tabs are 8 columns wide) and
+    * the comments attached as special tokens.
+    * The whole file is lexed before parsing. A source with a
+    * unicode escape (backslash u) or a non ASCII byte , or one
+    * that doesn't lex , is parsed with the generated token
+    * manager instead , so escapes and lexical errors behave
+    * exactly as before.
+    -------------------------------------------------------------*/
+
+    private static final int TAB_SIZE = 8;
+    private static final byte[] PRINT_BYTES = jjstrLiteralImages[PRINT].getBytes(StandardCharsets.US_ASCII);
+    private static final Map<String,Integer> KEYWORDS = new HashMap<>();
+    private static final int[] SINGLE_CHAR = new int[128]; // Kind of the one character tokens , with "," and "*" of the productions.
+
+    static {
+        Arrays.fill(SINGLE_CHAR, -1);
+        for(int kind = 0; kind < jjstrLiteralImages.length; kind++) {
+            String image = jjstrLiteralImages[kind];
+            if(image == null || image.isEmpty() || kind == PRINT)
+                continue;
+            if(IsLetter(image.charAt(0)))
+                KEYWORDS.put(image, kind);
+            else if(image.length() == 1)
+                SINGLE_CHAR[image.charAt(0)] = kind;
+        }
+    }
+
+    private final ByteBuffer source;
+    private final List<Token> tokens = new ArrayList<>();
+    private int nextToken;
+
+    // Position of the last character read , updated like JavaCharStream does.
+    private int line = 1;
+    private int column = 0;
+    private boolean prevCharIsCR;
+    private boolean prevCharIsLF;
+    private byte[] scratch = new byte[64];
+
+    private FastTokenManager(ByteBuffer source){
+        super(null); // Characters are never read through the stream.
+        this.source = source;
+    }
+
+    // A parser of source , lexed from its bytes when possible.
+    public static MiniJavaParser CreateParser(ByteBuffer source){
+        FastTokenManager tokenManager = new FastTokenManager(source.duplicate());
+        if(tokenManager.Tokenize())
+            return new MiniJavaParser(tokenManager);
+        byte[] bytes = new byte[source.remaining()];
+        source.duplicate().get(bytes);
+        return new MiniJavaParser(new ByteArrayInputStream(bytes));
+    }
+
+    // The tokens of source ending with <EOF> , or null if it must go through the generated token manager.
+    public static List<Token> Tokens(ByteBuffer source){
+        FastTokenManager tokenManager = new FastTokenManager(source.duplicate());
+        return tokenManager.Tokenize() ? tokenManager.tokens : null;
+    }
+
+    public Token getNextToken(){
+        if(nextToken < tokens.size())
+            return tokens.get(nextToken++);
+        return Copy(tokens.get(tokens.size() - 1)); // Asked past the end , every call gets its own <EOF>.
+    }
+
+    // Fills tokens , ending with <EOF>. Returns false if the source must go through the generated token manager.
+    private boolean Tokenize(){
+        int pos = source.position();
+        int limit = source.limit();
+        Token special = null; // The comments before the next token.
+        while(pos < limit) {
+            int c = source.get(pos);
+            if(c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') {
+                Advance(c);
+                pos++;
+                continue;
+            }
+
+            int start = pos;
+            Advance(c);
+            int beginLine = line;
+            int beginColumn = column;
+            int kind = (c >= 0) ? SINGLE_CHAR[c] : -1;
+            int end = pos + 1; // Exclusive.
+            switch (c){
+                case '&':
+                    if(end == limit || source.get(end) != '&')
+                        return false;
+                    kind = AND;
+                    end++;
+                    break;
+                case '/':
+                    int second = (end < limit) ? source.get(end) : 0;
+                    if(second == '/') {
+                        kind = SINGLE_LINE_COMMENT;
+                        end = LineCommentEnd(start + 2, limit);
+                    }else if(second == '*') {
+                        // "/**" starts a formal comment if it is closed after that star , so "/**/" alone is a multi line one.
+                        int formal = (start + 2 < limit && source.get(start + 2) == '*') ? BlockCommentEnd(start + 3, limit) : 0;
+                        kind = (formal == 0) ? MULTI_LINE_COMMENT : FORMAL_COMMENT;
+                        end = (formal == 0) ? BlockCommentEnd(start + 2, limit) : formal;
+                    }else{
+                        return false;
+                    }
+                    if(end <= 0)
+                        return false;
+                    break;
+                default:
+                    if(kind >= 0) // One character.
+                        break;
+                    if(c == 'S' && Matches(start, PRINT_BYTES, limit)) {
+                        kind = PRINT;
+                        end = start + PRINT_BYTES.length;
+                    }else if(IsLetter(c)) {
+                        while(end < limit && (IsLetter(source.get(end)) || IsDigit(source.get(end))))
+                            end++;
+                        kind = IDENTIFIER;
+                    }else if(IsDigit(c)) {
+                        if(c != '0') // "0" or [1-9][0-9]*
+                            while(end < limit && IsDigit(source.get(end)))
+                                end++;
+                        kind = INTEGER_LITERAL;
+                    }else{ // Unknown or non ASCII.
+                        return false;
+                    }
+                    break;
+            }
+            for(int i = start + 1; i < end; i++)
+                Advance(source.get(i));
+            pos = end;
+
+            String image = jjstrLiteralImages[kind];
+            if(image == null) {
+                image = Image(start, end);
+                Integer keyword = (kind == IDENTIFIER) ? KEYWORDS.get(image) : null;
+                if(keyword != null) {
+                    kind = keyword;
+                    image = jjstrLiteralImages[kind];
+                }
+            }
+            Token token = Token.newToken(kind, image);
+            token.beginLine = beginLine;
+            token.beginColumn = beginColumn;
+            token.endLine = line;
+            token.endColumn = column;
+
+            if(kind == SINGLE_LINE_COMMENT || kind == FORMAL_COMMENT || kind == MULTI_LINE_COMMENT) {
+                if(special != null) { // Chained like the generated token manager does.
+                    token.specialToken = special;
+                    special.next = token;
+                }
+                special = token;
+            }else{
+                token.specialToken = special;
+                special = null;
+                tokens.add(token);
+            }
+        }
+
+        Token eof = Token.newToken(EOF, jjstrLiteralImages[EOF]);
+        eof.beginLine = eof.endLine = line;
+        eof.beginColumn = eof.endColumn = column;
+        eof.specialToken = special;
+        tokens.add(eof);
+        return true;
+    }
+
+    // End (exclusive) of the line comment whose text starts at from , with its line terminator ("\n" , "\r" or "\r\n").
+    // 0 if there is none , -1 if the text has a unicode escape or a non ASCII byte.
+    private int LineCommentEnd(int from, int limit){
+        for(int i = from; i < limit; i++) {
+            int c = source.get(i);
+            if(c == '\n')
+                return i + 1;
+            if(c == '\r')
+                return (i + 1 < limit && source.get(i + 1) == '\n') ? i + 2 : i + 1;
+            if(IsUnusual(c, i, limit))
+                return -1;
+        }
+        return 0;
+    }
+
+    // End (exclusive) of the first "*/" whose star is at from or after it.
+    // 0 if there is none , -1 if a unicode escape or a non ASCII byte comes first.
+    private int BlockCommentEnd(int from, int limit){
+        for(int i = from; i < limit; i++) {
+            int c = source.get(i);
+            if(c == '*' && i + 1 < limit && source.get(i + 1) == '/')
+                return i + 2;
+            if(IsUnusual(c, i, limit))
+                return -1;
+        }
+        return 0;
+    }
+
+    // Non ASCII bytes and backslash u sequences are left to the generated token manager.
+    private boolean IsUnusual(int c, int i, int limit){
+        return c < 0 || (c == '\\' && i + 1 < limit && source.get(i + 1) == 'u');
+    }
+
+    private boolean Matches(int start, byte[] text, int limit){
+        if(limit - start < text.length)
+            return false;
+        for(int i = 0; i < text.length; i++)
+            if(source.get(start + i) != text[i])
+                return false;
+        return true;
+    }
+
+    private String Image(int start, int end){
+        int length = end - start;
+        if(scratch.length < length)
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        for(int i = 0; i < length; i++)
+            scratch[i] = source.get(start + i);
+        return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    // JavaCharStream.UpdateLineColumn.
+    private void Advance(int c){
+        column++;
+        if(prevCharIsLF) {
+            prevCharIsLF = false;
+            line += (column = 1);
+        }else if(prevCharIsCR) {
+            prevCharIsCR = false;
+            if(c == '\n')
+                prevCharIsLF = true;
+            else
+                line += (column = 1);
+        }
+        if(c == '\r') {
+            prevCharIsCR = true;
+        }else if(c == '\n') {
+            prevCharIsLF = true;
+        }else if(c == '\t') {
+            column--;
+            column += (TAB_SIZE - (column % TAB_SIZE));
+        }
+    }
+
+    private static Token Copy(Token token){
+        Token copy = Token.newToken(token.kind, token.image);
+        copy.beginLine = token.beginLine;
+        copy.beginColumn = token.beginColumn;
+        copy.endLine = token.endLine;
+        copy.endColumn = token.endColumn;
+        return copy;
+    }
+
+    private static boolean IsLetter(int c){
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$';
+    }
+
+    private static boolean IsDigit(int c){
+        return c >= '0' && c <= '9';
+    }
+
+}
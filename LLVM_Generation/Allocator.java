@@ -0,0 +1,34 @@
+package LLVM_Generation;
+
+public enum Allocator {
+    /*-------------------------------------------------------
+    * Where the generated program gets the memory of its
+    * objects and arrays from. Both hand out zeroed memory.
+    *   CALLOC : one libc calloc per new.
+    *   ARENA  : a bump pointer in 1MB chunks that are never
+    *            freed , calloc only runs once per chunk (and
+    *            for arrays too big to share one).
+    *   GC     : calloc with a header , freed by the mark-sweep
+    *            collector of GarbageCollector.
+    -------------------------------------------------------*/
+    CALLOC("calloc"),
+    ARENA("arena"),
+    GC("gc");
+
+    private final String name;
+
+    Allocator(String name){
+        this.name = name;
+    }
+
+    public String GetName() { return name; }
+
+    // The allocator with the given name , null if there is none.
+    public static Allocator Parse(String name){
+        for(Allocator allocator : values())
+            if(allocator.name.equals(name))
+                return allocator;
+        return null;
+    }
+
+}
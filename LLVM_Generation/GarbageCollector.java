@@ -0,0 +1,246 @@
+package LLVM_Generation;
+
+import LLVM_Generation.IR.Constant;
+import TypeChecking.ClassT;
+import TypeChecking.TypeT;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public final class GarbageCollector {
+    /*-------------------------------------------------------------
+    * The mark-sweep collector of --alloc gc , written in llvm.
+    * Every block from gc_alloc starts with a 32 byte header :
+    *   [0] next block , all blocks are kept in one list ,
+    *   [8] pointer map , null for arrays (they hold no pointers) ,
+    *  [16] size of the block (i64) , [28] mark.
+    * Blocks are sized in i64 (malloc and memset) , an array over
+    * 4GB is allocated whole or the program exits.
+    * The pointer map of a class is [count , offsets...] , the
+    * offsets of its object and array fields (inherited ones too).
+    * Roots are found on a shadow stack : every method that holds
+    * pointers keeps them in a frame [previous frame , count ,
+    * roots...] that it links to @_gc_top on entry and unlinks
+    * before returning , see GeneratorVisitor.
+    * A collection runs when the bytes allocated since the last
+    * one go over max(MIN_HEAP , bytes alive after it). Marking
+    * uses its own stack (no recursion on long lists) , the
+    * blocks that weren't marked are freed.
+    -------------------------------------------------------------*/
+
+    public static final int MIN_HEAP = 1 << 20;
+
+    private GarbageCollector(){}
+
+    // [count , offsets...] of the fields that hold pointers , null if there are none.
+    public static List<Constant> PointerMap(ClassT classT){
+        List<Constant> offsets = new ArrayList<>();
+        for(ClassT owner = classT; owner != null; owner = owner.GetSuperClass()) // Shadowed fields are still there.
+            for(Map.Entry<String,Integer> field : owner.GetMemberOffsetsHash().entrySet()) {
+                TypeT type = owner.GetMemberVar(field.getKey());
+                if(type != TypeT.INT && type != TypeT.BOOLEAN)
+                    offsets.add(Constant.Int(field.getValue() + 8));
+            }
+        if(offsets.isEmpty())
+            return null;
+        offsets.sort((a, b) -> Integer.compare(a.GetValue(), b.GetValue()));
+        offsets.add(0, Constant.Int(offsets.size()));
+        return offsets;
+    }
+
+    public static String Runtime(){
+        return "\n" +
+                "declare void @free(i8*)\n" +
+                "declare i8* @realloc(i8*, i64)\n" +
+                "declare i8* @malloc(i64)\n" +
+                "declare void @llvm.memset.p0i8.i32(i8*, i8, i32, i1)\n" +
+                "declare void @llvm.memset.p0i8.i64(i8*, i8, i64, i1)\n" +
+                "\n" +
+                "@_cOOM = constant [15 x i8] c\"Out of memory\\0a\\00\"\n" +
+                "\n" +
+                "@_gc_objects = global i8* null\n" +
+                "@_gc_allocated = global i64 0\n" +
+                "@_gc_threshold = global i64 " + MIN_HEAP + "\n" +
+                "@_gc_stack = global i8** null\n" +
+                "@_gc_stack_size = global i64 0\n" +
+                "@_gc_stack_capacity = global i64 0\n" +
+                "\n" +
+                "define i8* @gc_alloc(i32 %count, i32 %size, i32* %map) {\n" +
+                "entry:\n" +
+                "    %_count = sext i32 %count to i64\n" +
+                "    %_size = sext i32 %size to i64\n" +
+                "    %_bytes = mul i64 %_count, %_size\n" +
+                "    %_total = add i64 %_bytes, 32\n" +
+                "    %_allocated = load i64, i64* @_gc_allocated\n" +
+                "    %_after = add i64 %_allocated, %_total\n" +
+                "    %_threshold = load i64, i64* @_gc_threshold\n" +
+                "    %_full = icmp ugt i64 %_after, %_threshold\n" +
+                "    br i1 %_full, label %collect, label %allocate\n" +
+                "collect:\n" +
+                "    call void @gc_collect()\n" +
+                "    br label %allocate\n" +
+                "allocate:\n" +
+                "    %_since = load i64, i64* @_gc_allocated\n" +
+                "    %_since1 = add i64 %_since, %_total\n" +
+                "    store i64 %_since1, i64* @_gc_allocated\n" +
+                "    %_block = call i8* @malloc(i64 %_total)\n" +
+                "    %_failed = icmp eq i8* %_block, null\n" +
+                "    br i1 %_failed, label %out_of_memory, label %clear\n" +
+                "out_of_memory:\n" +
+                "    %_str = bitcast [15 x i8]* @_cOOM to i8*\n" +
+                "    call i32 (i8*, ...) @printf(i8* %_str)\n" +
+                "    call void @exit(i32 1)\n" +
+                "    ret i8* null\n" +
+                "clear:\n" +
+                "    call void @llvm.memset.p0i8.i64(i8* %_block, i8 0, i64 %_total, i1 false)\n" +
+                "    %_nextPtr = bitcast i8* %_block to i8**\n" +
+                "    %_head = load i8*, i8** @_gc_objects\n" +
+                "    store i8* %_head, i8** %_nextPtr\n" +
+                "    store i8* %_block, i8** @_gc_objects\n" +
+                "    %_mapAddr = getelementptr i8, i8* %_block, i64 8\n" +
+                "    %_mapPtr = bitcast i8* %_mapAddr to i32**\n" +
+                "    store i32* %map, i32** %_mapPtr\n" +
+                "    %_sizeAddr = getelementptr i8, i8* %_block, i64 16\n" +
+                "    %_sizePtr = bitcast i8* %_sizeAddr to i64*\n" +
+                "    store i64 %_total, i64* %_sizePtr\n" +
+                "    %_object = getelementptr i8, i8* %_block, i64 32\n" +
+                "    ret i8* %_object\n" +
+                "}\n" +
+                "\n" +
+                "define void @gc_mark(i8* %object) {\n" +
+                "entry:\n" +
+                "    %_null = icmp eq i8* %object, null\n" +
+                "    br i1 %_null, label %done, label %check\n" +
+                "check:\n" +
+                "    %_markAddr = getelementptr i8, i8* %object, i64 -4\n" +
+                "    %_markPtr = bitcast i8* %_markAddr to i32*\n" +
+                "    %_mark = load i32, i32* %_markPtr\n" +
+                "    %_marked = icmp ne i32 %_mark, 0\n" +
+                "    br i1 %_marked, label %done, label %push\n" +
+                "push:\n" +
+                "    store i32 1, i32* %_markPtr\n" +
+                "    %_top = load i64, i64* @_gc_stack_size\n" +
+                "    %_capacity = load i64, i64* @_gc_stack_capacity\n" +
+                "    %_full = icmp eq i64 %_top, %_capacity\n" +
+                "    br i1 %_full, label %grow, label %store\n" +
+                "grow:\n" +
+                "    %_twice = mul i64 %_capacity, 2\n" +
+                "    %_newCapacity = add i64 %_twice, 256\n" +
+                "    %_newBytes = mul i64 %_newCapacity, 8\n" +
+                "    %_old = load i8**, i8*** @_gc_stack\n" +
+                "    %_oldRaw = bitcast i8** %_old to i8*\n" +
+                "    %_newRaw = call i8* @realloc(i8* %_oldRaw, i64 %_newBytes)\n" +
+                "    %_new = bitcast i8* %_newRaw to i8**\n" +
+                "    store i8** %_new, i8*** @_gc_stack\n" +
+                "    store i64 %_newCapacity, i64* @_gc_stack_capacity\n" +
+                "    br label %store\n" +
+                "store:\n" +
+                "    %_stack = load i8**, i8*** @_gc_stack\n" +
+                "    %_slot = getelementptr i8*, i8** %_stack, i64 %_top\n" +
+                "    store i8* %object, i8** %_slot\n" +
+                "    %_top1 = add i64 %_top, 1\n" +
+                "    store i64 %_top1, i64* @_gc_stack_size\n" +
+                "    br label %done\n" +
+                "done:\n" +
+                "    ret void\n" +
+                "}\n" +
+                "\n" +
+                "define void @gc_collect() {\n" +
+                "entry:\n" +
+                "    %_first = load i8*, i8** @_gc_top\n" +
+                "    br label %frames\n" +
+                "frames:\n" +
+                "    %_frame = phi i8* [%_first, %entry], [%_prev, %roots]\n" +
+                "    %_bottom = icmp eq i8* %_frame, null\n" +
+                "    br i1 %_bottom, label %drain, label %frame\n" +
+                "frame:\n" +
+                "    %_words = bitcast i8* %_frame to i8**\n" +
+                "    %_prev = load i8*, i8** %_words\n" +
+                "    %_countAddr = getelementptr i8*, i8** %_words, i64 1\n" +
+                "    %_countPtr = bitcast i8** %_countAddr to i64*\n" +
+                "    %_count = load i64, i64* %_countPtr\n" +
+                "    br label %roots\n" +
+                "roots:\n" +
+                "    %_i = phi i64 [0, %frame], [%_i1, %root]\n" +
+                "    %_moreRoots = icmp ult i64 %_i, %_count\n" +
+                "    br i1 %_moreRoots, label %root, label %frames\n" +
+                "root:\n" +
+                "    %_rootIndex = add i64 %_i, 2\n" +
+                "    %_rootPtr = getelementptr i8*, i8** %_words, i64 %_rootIndex\n" +
+                "    %_root = load i8*, i8** %_rootPtr\n" +
+                "    call void @gc_mark(i8* %_root)\n" +
+                "    %_i1 = add i64 %_i, 1\n" +
+                "    br label %roots\n" +
+                "drain:\n" +
+                "    %_top = load i64, i64* @_gc_stack_size\n" +
+                "    %_empty = icmp eq i64 %_top, 0\n" +
+                "    br i1 %_empty, label %sweep, label %pop\n" +
+                "pop:\n" +
+                "    %_top1 = sub i64 %_top, 1\n" +
+                "    store i64 %_top1, i64* @_gc_stack_size\n" +
+                "    %_stack = load i8**, i8*** @_gc_stack\n" +
+                "    %_objectPtr = getelementptr i8*, i8** %_stack, i64 %_top1\n" +
+                "    %_object = load i8*, i8** %_objectPtr\n" +
+                "    %_mapAddr = getelementptr i8, i8* %_object, i64 -24\n" +
+                "    %_mapPtr = bitcast i8* %_mapAddr to i32**\n" +
+                "    %_map = load i32*, i32** %_mapPtr\n" +
+                "    %_noMap = icmp eq i32* %_map, null\n" +
+                "    br i1 %_noMap, label %drain, label %fields\n" +
+                "fields:\n" +
+                "    %_fieldCount = load i32, i32* %_map\n" +
+                "    br label %field_loop\n" +
+                "field_loop:\n" +
+                "    %_j = phi i32 [1, %fields], [%_j1, %field]\n" +
+                "    %_moreFields = icmp sle i32 %_j, %_fieldCount\n" +
+                "    br i1 %_moreFields, label %field, label %drain\n" +
+                "field:\n" +
+                "    %_offsetPtr = getelementptr i32, i32* %_map, i32 %_j\n" +
+                "    %_offset = load i32, i32* %_offsetPtr\n" +
+                "    %_fieldAddr = getelementptr i8, i8* %_object, i32 %_offset\n" +
+                "    %_fieldPtr = bitcast i8* %_fieldAddr to i8**\n" +
+                "    %_child = load i8*, i8** %_fieldPtr\n" +
+                "    call void @gc_mark(i8* %_child)\n" +
+                "    %_j1 = add i32 %_j, 1\n" +
+                "    br label %field_loop\n" +
+                "sweep:\n" +
+                "    br label %walk\n" +
+                "walk:\n" +
+                "    %_link = phi i8** [@_gc_objects, %sweep], [%_link, %free], [%_blockWords, %keep]\n" +
+                "    %_live = phi i64 [0, %sweep], [%_live, %free], [%_live1, %keep]\n" +
+                "    %_block = load i8*, i8** %_link\n" +
+                "    %_end = icmp eq i8* %_block, null\n" +
+                "    br i1 %_end, label %finish, label %test\n" +
+                "test:\n" +
+                "    %_blockWords = bitcast i8* %_block to i8**\n" +
+                "    %_markAddr = getelementptr i8, i8* %_block, i64 28\n" +
+                "    %_markPtr = bitcast i8* %_markAddr to i32*\n" +
+                "    %_mark = load i32, i32* %_markPtr\n" +
+                "    %_marked = icmp ne i32 %_mark, 0\n" +
+                "    br i1 %_marked, label %keep, label %free\n" +
+                "free:\n" +
+                "    %_next = load i8*, i8** %_blockWords\n" +
+                "    store i8* %_next, i8** %_link\n" +
+                "    call void @free(i8* %_block)\n" +
+                "    br label %walk\n" +
+                "keep:\n" +
+                "    store i32 0, i32* %_markPtr\n" +
+                "    %_sizeAddr = getelementptr i8, i8* %_block, i64 16\n" +
+                "    %_sizePtr = bitcast i8* %_sizeAddr to i64*\n" +
+                "    %_size = load i64, i64* %_sizePtr\n" +
+                "    %_live1 = add i64 %_live, %_size\n" +
+                "    br label %walk\n" +
+                "finish:\n" +
+                "    store i64 0, i64* @_gc_allocated\n" +
+                "    %_small = icmp ult i64 %_live, " + MIN_HEAP + "\n" +
+                "    br i1 %_small, label %minimum, label %grown\n" +
+                "minimum:\n" +
+                "    store i64 " + MIN_HEAP + ", i64* @_gc_threshold\n" +
+                "    ret void\n" +
+                "grown:\n" +
+                "    store i64 %_live, i64* @_gc_threshold\n" +
+                "    ret void\n" +
+                "}\n";
+    }
+
+}
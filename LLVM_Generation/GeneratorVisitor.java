@@ -1,273 +1,175 @@
 package LLVM_Generation;
 
+import LLVM_Generation.IR.*;
+import LLVM_Generation.IR.Module;
+import LLVM_Generation.IR.Type;
 import TypeChecking.ClassT;
 import TypeChecking.FunctionT;
 import TypeChecking.SymbolTable;
+import TypeChecking.TypeT;
 import syntaxtree.*;
 import visitor.GJDepthFirst;
 
-import java.io.FileWriter;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
-public class GeneratorVisitor extends GJDepthFirst<String, Object> {
+public class GeneratorVisitor extends GJDepthFirst<Value, Object> {
+    /*-------------------------------------------------------------
+    * Builds the llvm module of a type checked file.
+    * Every expression returns its value already loaded , the
+    * type of the value tells which class an object belongs to
+    * or whether an array holds ints or booleans.
+    -------------------------------------------------------------*/
 
-    SymbolTable symbolTable;
-    int varCounter;
-    int labelCounter;
-    int indentLevel;
-    FileWriter writer;
-
-    Map<String,String> funDeclHash;
-
-    private void Emmit(String str){
-        //System.out.println(str);
-        try {
-            writer.write(str+"\n");
-        }catch (Exception e){
-            System.out.println(e.getMessage());
-        }
-    }
-
-    private String GetVar(){
-        return String.format("_%d.t",varCounter++);
-    }
-
-    private String GetLabel() { return String.format("_%d.label",labelCounter++);}
-
-    private void ResetVarCounter(){
-        varCounter = 0;
-    }
-
-    private void ResetLabelCounter() { labelCounter = 0;}
+    private static final Type INT_ARRAY = Type.I32.PointerTo();
+    private static final Type BOOLEAN_ARRAY = Type.I1.PointerTo();
+    private static final Type I8_PTR = Type.I8.PointerTo();
 
-    private String Indent(){
-        return "\t".repeat(Math.max(0, indentLevel));
-    }
-
-    private String TypeToLLVM(String type){
-        switch (type){
-            case "int":
-                return "i32";
-            case "int[]":
-                return "i32*";
-            case "boolean":
-                return "i1";
-            case "boolean[]":
-                return "i1*"; //NOTE: maybe change to i8*. -> return , assignment etc.
-            default: //Class types.
-                return "i8*";
+    SymbolTable symbolTable;
+    Allocator allocator;
+    Module module;
+    IRBuilder builder;
+
+    Map<FunctionT,Function> functions;
+    Map<String,Instruction> locals; // Stack slots of the current function.
+    Function allocate; // calloc , arena_alloc or gc_alloc.
+    Function printInt;
+    Function throwOob;
+    Function throwNsz;
+
+    // Shadow stack of --alloc gc , see GarbageCollector.
+    Function memset;
+    GlobalVariable gcTop; // The innermost frame.
+    Instruction roots; // The frame of the current function as i8** , created with its first root.
+    int rootCount;
+
+    private Type TypeToLLVM(TypeT type){
+        if(type == TypeT.INT)
+            return Type.I32;
+        if(type == TypeT.INT_ARRAY)
+            return INT_ARRAY;
+        if(type == TypeT.BOOLEAN)
+            return Type.I1;
+        if(type == TypeT.BOOLEAN_ARRAY)
+            return BOOLEAN_ARRAY;
+        return Type.Object(type.GetName()); //Class types.
+    }
+
+    private Function DeclareFunction(FunctionT fun){
+        // Format : returnType @Class.func(i8* %this, type %.argName , ...)
+        ClassT owner = fun.GetParentClass();
+        List<Type> paramTypes = new ArrayList<>();
+        List<String> paramNames = new ArrayList<>();
+        paramTypes.add(Type.Object(owner.GetName()));
+        paramNames.add("this");
+        for(Map.Entry<String, TypeT> currArg : fun.GetArgsHash().entrySet()) {
+            paramTypes.add(TypeToLLVM(currArg.getValue()));
+            paramNames.add("." + currArg.getKey());
         }
-    }
 
-    private String Bitcast(String fromType,String toType,String value,boolean withPar){
-        if(withPar)
-            return String.format("bitcast (%s %s to %s)",fromType,value,toType);
-        else
-            return String.format("bitcast %s %s to %s",fromType,value,toType);
+        Function declared = new Function(owner.GetName() + "." + fun.GetName(), TypeToLLVM(fun.GetReturnType()),
+                paramTypes, paramNames, false, fun, owner);
+        functions.put(fun, declared);
+        module.AddFunction(declared);
+        return declared;
     }
 
-    private String FunctionToVtableElement(FunctionT fun){
-        // Format : i8* bitcast (returnType (this,args)* @FuncName to i8*)
-
-        StringBuilder funcPtr = new StringBuilder(String.format("%s (i8*",TypeToLLVM(fun.GetReturnType())));
-        for(String varType : fun.GetArgs()){
-            funcPtr.append(String.format(", %s", TypeToLLVM(varType)));
-        }
-        funcPtr.append(")*");
-        funDeclHash.put(fun.GetName(),funcPtr.toString());
-
-        return "i8* " + Bitcast(funcPtr.toString(),"i8*",String.format("@%s.%s",fun.GetParentClass().GetName(),fun.GetName()),true);
+    private Function DeclareRuntime(String name, Type returnType, Type... paramTypes){
+        Function declared = new Function(name, returnType, List.of(paramTypes), null, true, null, null);
+        module.AddFunction(declared);
+        return declared;
     }
 
-    private String CreateVTable(ClassT classT){
+    private void CreateVTable(ClassT classT){
         // Format : className_table  global [#funcs X i8* ] [ func_elements ]
-
-        Map<String,FunctionT> childFuncs = SymbolTable.CreateMap();
-
-        ClassT parentClass = symbolTable.GetClass(classT.GetExtendType());
-        while (parentClass != null) { //Finds all the rest inherited functions.
-            childFuncs.putAll(parentClass.GetFunctionsHash());
-            parentClass = symbolTable.GetClass(parentClass.GetExtendType());
-        }
-        childFuncs.putAll(classT.GetFunctionsHash());
-
-        StringBuilder vtableListValues = new StringBuilder();
-        int funCounter = 0;
-        for(FunctionT fun : childFuncs.values()){
-            funCounter++;
-            if(fun.GetName().equals("main")) { //We remove main since it's static.
-                childFuncs.remove("main");
-            }else{
-                vtableListValues.append(String.format("%s", FunctionToVtableElement(fun)));
-                if(funCounter < childFuncs.values().size())
-                    vtableListValues.append(",");
-            }
-        }
-        return String.format("@.%s_VTable = global [%s x i8*] [%s]",classT.GetName(),childFuncs.size(), vtableListValues.toString());
-    }
-
-    private String Define_DeclarationPart(FunctionT fun){
-        //format : define return_type @Class.func(i8* %this, type %.argName , ...) {
-        String returnTypeLLVM = TypeToLLVM(fun.GetReturnType());
-        String className = fun.GetParentClass().GetName();
-        String funName = fun.GetName();
-
-        if(!funName.equals("main")) {
-            StringBuilder temp = new StringBuilder(String.format("define %s @%s.%s(i8* %%this", returnTypeLLVM, className, funName));
-            for(Map.Entry<String, String> currArg : fun.GetArgsHash().entrySet())
-                temp.append(String.format(",%s %%.%s", TypeToLLVM(currArg.getValue()), currArg.getKey()));
-
-            temp.append(")");
-            return temp.toString();
-        }else{
-            return "define i32 @main()";
-        }
-    }
-
-    private String Alloca(String type){
-        return String.format("alloca %s",TypeToLLVM(type));
-    }
-
-    private String Store(String fromType , String fromValue , String toType , String toValue){
-        return String.format("store %s %s , %s %s",fromType,fromValue,toType,toValue);
-    }
-
-    private String Load(String fromType,String fromValue,String toType,String toValue){
-        return String.format("%s = load %s, %s %s",toValue,toType,fromType,fromValue);
-    }
-
-    private String Ret(String type,String value){
-        return String.format("ret %s %s",type,value);
-    }
-
-    private String Add(String toValue, String id1, String id2){
-        return String.format("%s = add %s %s , %s",toValue, "i32",id1,id2);
-    }
-
-    private String Sub(String toValue, String id1, String id2){
-        return String.format("%s = sub %s %s , %s",toValue, "i32",id1,id2);
-    }
-
-    private String Times(String toValue, String id1, String id2){
-        return String.format("%s = mul %s %s , %s",toValue, "i32",id1,id2);
-    }
-
-    private String Compare(String toValue,String id1,String id2,boolean smallerThan){
-        return String.format("%s = icmp %s i32 %s , %s",toValue,(smallerThan)?"slt":"sge",id1,id2);
-    }
-
-    private boolean IsNumber(String str){
-        return str.matches("-?(0|[1-9]\\d*)");
+        List<Function> entries = new ArrayList<>(classT.GetVTable().size());
+        for(FunctionT fun : classT.GetVTable())
+            entries.add(functions.get(fun));
+        module.AddGlobal(new GlobalVariable("." + classT.GetName() + "_VTable", entries));
     }
 
-    private boolean IsLiteral(String str){
-        return IsNumber(str) || str.equals("true") || str.equals("false");
-    }
-
-    private String Call(String returnType,String funName,String args){
-        return String.format("call %s %s(%s)",returnType,funName,args);
+    private void CreatePointerMap(ClassT classT){
+        // Format : className_PointerMap  constant [N+1 x i32] [ N , offsets ]
+        List<Constant> map = GarbageCollector.PointerMap(classT);
+        if(map != null)
+            module.AddGlobal(new GlobalVariable("." + classT.GetName() + "_PointerMap", Type.I32, map));
     }
 
     private int GetObjectSize(ClassT classT){
         return classT.GetMemberOffset() + 8;
     }
 
-    private String LoadExpression(String expr,FunctionT fun){
-        // Loads  if expr is a local / arg / member variable
-        // Else return expr back since it's already a loaded temp.
-
-        if(fun.GetLocalsHash().containsKey(expr)) { // If local var.
-            String val = GetVar();
-            String type = TypeToLLVM(fun.GetLocalsHash().get(expr));
-            Emmit(Indent() + Load(type+"*", "%" + expr, type, "%" + val));
-            return val;
-        }
-
-        String type = GetVariableType(expr,fun,true);
-        if(type != null) {
-            String val = GetMemberPtr(expr, fun);
-            String temp = GetVar();
-            Emmit(Indent() + Load(type + "*", "%" + val, type, "%" + temp));
-            return temp;
-        }
-
-        return expr; // If temp var.
+    Value This(){
+        return builder.GetFunction().GetArgument(0);
     }
 
-    private String Getelementptr(String fromType,String fromValue,String toValue,String byteOffset){
-        return String.format("%s = getelementptr %s, %s* %s, i32 %s",toValue,fromType,fromType,fromValue,byteOffset);
+    Value LoadVariable(String name, FunctionT fun){
+        Instruction slot = locals.get(name);
+        if(slot != null) // If local var.
+            return builder.Load(slot);
+        return Root(builder.Load(GetMemberPtr(name, fun))); // A call may overwrite the field while the value is in use.
     }
 
-    private int GetVarOffset(String var,FunctionT fun){
-        int bytes;
-        ClassT tempClass = fun.GetParentClass();
-        while(tempClass != null){
-            if(tempClass.GetMembersHash().containsKey(var)){
-                return tempClass.GetMemberOffsetsHash().get(var);
-            }
-            tempClass = symbolTable.GetClass(tempClass.GetExtendType());
-        }
+    private Value GetMemberPtr(String name, FunctionT fun){
+        ClassT classT = fun.GetParentClass();
+        Instruction ptr = builder.Gep(Type.I8, This(), Constant.Int(classT.GetFieldOffset(name) + 8));
+        return builder.Bitcast(ptr, TypeToLLVM(classT.GetFieldType(name)).PointerTo());
+    }
 
-        throw  new RuntimeException("var does not exist.");
+    Value GetVariablePtr(String name, FunctionT fun){
+        Instruction slot = locals.get(name);
+        return (slot != null) ? slot : GetMemberPtr(name, fun);
     }
 
-    private String GetMemberPtr(String val , FunctionT fun){
-        if(!fun.GetLocalsHash().containsKey(val)) { // If it's not a local it's a member var.
-            String temp = GetVar();
-            Emmit(Indent() + Getelementptr("i8","%this","%" + temp,GetVarOffset(val,fun) + 8 + ""));
-            String temp2 = GetVar();
-            String type = GetVariableType(val,fun,true);
-            Emmit(Indent() + "%" + temp2 + " = " + Bitcast("i8*",type+"*","%" + temp,false));
-            return temp2;
-        }else{
-            return val;
-        }
+    public GeneratorVisitor(SymbolTable symbolTable){
+        this(symbolTable, Allocator.CALLOC);
     }
 
-    private String GetVariableType(String var, FunctionT fun,boolean asLLVM){
-        if(fun.GetLocalsHash().containsKey(var)) { // If local var.
-            String type = fun.GetLocalsHash().get(var);
-            if(type.equals("String[]"))
-                return type;
-            else
-                return (asLLVM) ? TypeToLLVM(type) : type;
-        }
+    public GeneratorVisitor(SymbolTable symbolTable, Allocator allocator){
+        this.symbolTable = symbolTable;
+        this.allocator = allocator;
+        this.module = new Module();
+        this.builder = new IRBuilder();
+        this.functions = SymbolTable.CreateMap();
+        this.locals = SymbolTable.CreateMap();
 
-        ClassT tempClass = fun.GetParentClass();
-        while(tempClass != null) { // If member var.
-            if(tempClass.GetMembersHash().containsKey(var)) {
-                return (asLLVM) ? TypeToLLVM(tempClass.GetMembersHash().get(var)) : tempClass.GetMembersHash().get((var));
+        for(ClassT currClass : symbolTable.GetClasses())
+            for(FunctionT fun : currClass.GetFunctions()) {
+                if(fun.GetName().equals("main")) {
+                    Function main = new Function("main", Type.I32, List.of(), null, false, fun, currClass);
+                    functions.put(fun, main);
+                    module.AddFunction(main);
+                }else{
+                    DeclareFunction(fun);
+                }
             }
-            tempClass = symbolTable.GetClass(tempClass.GetExtendType());
-        }
-
-        return null;
-    }
 
-    private FunctionT GetFuncFromHierachy(String name, ClassT classT){
-        ClassT temp = classT;
-        while(temp != null){
-            if(temp.GetFunctionsHash().containsKey(name))
-                return temp.GetFunctionsHash().get(name);
-            temp = symbolTable.GetClass(temp.GetExtendType());
+        for(ClassT currClass : symbolTable.GetClasses()) {
+            module.AddClass(currClass);
+            CreateVTable(currClass);
+            if(allocator == Allocator.GC)
+                CreatePointerMap(currClass);
         }
-        return null;
-    }
-
-    public GeneratorVisitor(SymbolTable symbolTable,FileWriter writer){
-        this.symbolTable = symbolTable;
-        this.varCounter = 0;
-        this.labelCounter = 0;
-        this.indentLevel = 0;
-        this.funDeclHash = SymbolTable.CreateMap();
-        this.writer = writer;
 
-        for(ClassT currClass : symbolTable.GetClasses())
-            Emmit(CreateVTable(currClass));
+        if(allocator == Allocator.GC) {
+            allocate = DeclareRuntime("gc_alloc", I8_PTR, Type.I32, Type.I32, Type.I32.PointerTo());
+            memset = DeclareRuntime("llvm.memset.p0i8.i32", Type.VOID, I8_PTR, Type.I8, Type.I32, Type.I1);
+            gcTop = new GlobalVariable("_gc_top", Constant.Zero(I8_PTR));
+            module.AddGlobal(gcTop);
+        }else{
+            allocate = DeclareRuntime(allocator == Allocator.ARENA ? "arena_alloc" : "calloc", I8_PTR, Type.I32, Type.I32);
+        }
+        allocate.SetAllocator(true);
+        printInt = DeclareRuntime("print_int", Type.VOID, Type.I32);
+        throwOob = DeclareRuntime("throw_oob", Type.VOID);
+        throwNsz = DeclareRuntime("throw_nsz", Type.VOID);
+        throwOob.SetNoReturn(true);
+        throwNsz.SetNoReturn(true);
 
         //Standard declarations that have to be generated for each file.
-        Emmit("\ndeclare i8* @calloc(i32, i32)\n" +
+        module.AddRuntime("\ndeclare i8* @calloc(i32, i32)\n" +
                 "declare i32 @printf(i8*, ...)\n" +
                 "declare void @exit(i32)\n" +
                 "\n" +
@@ -294,18 +196,125 @@ public class GeneratorVisitor extends GJDepthFirst<String, Object> {
                 "    call void @exit(i32 1)\n" +
                 "    ret void\n" +
                 "}\n");
+        if(allocator == Allocator.ARENA)
+            AddArenaRuntime();
+        else if(allocator == Allocator.GC)
+            module.AddRuntime(GarbageCollector.Runtime());
+    }
+
+    // Zeroed memory from the allocator of the runtime. The collector also gets the pointer map of the
+    // object (null for arrays).
+    private Value Allocate(Type type, Value count, Value size, Value map){
+        if(allocator != Allocator.GC)
+            return builder.Call(type, allocate, count, size);
+        return Root(builder.Call(type, allocate, count, size, map));
+    }
+
+    // Keeps a pointer that the method may still use in a slot of its frame , so the collector sees it
+    // when a later allocation runs. Does nothing without the gc.
+    private Value Root(Value value){
+        if(allocator == Allocator.GC && value.GetType().IsPointer())
+            builder.Store(value, NewRoot(value.GetType()));
+        return value;
+    }
+
+    // A new slot of the frame , typed type*. Slots are computed in the entry block so they dominate every use.
+    private Instruction NewRoot(Type type){
+        if(roots == null)
+            roots = new Instruction(Opcode.BITCAST, I8_PTR.PointerTo(), (Value)null); // The frame comes with LinkFrame.
+        Instruction slot = new Instruction(Opcode.GETELEMENTPTR, I8_PTR.PointerTo(), roots, Constant.Int(2 + rootCount++));
+        slot.SetAuxType(I8_PTR);
+        Instruction typed = new Instruction(Opcode.BITCAST, type.PointerTo(), slot);
+        BasicBlock entry = builder.GetFunction().GetEntry();
+        entry.InsertBeforeTerminator(slot);
+        entry.InsertBeforeTerminator(typed);
+        return typed;
+    }
+
+    // Once the body is generated the number of roots is known : the frame [previous , count , roots...]
+    // is created and linked to the shadow stack at the start of the function and unlinked here , before ret.
+    void LinkFrame(){
+        if(roots == null)
+            return;
+        Type frameType = Type.Array(rootCount + 2, I8_PTR);
+        Instruction frame = new Instruction(Opcode.ALLOCA, frameType.PointerTo());
+        frame.SetAuxType(frameType);
+        frame.SetName("frame");
+        roots.SetOperand(0, frame);
+        Instruction raw = new Instruction(Opcode.BITCAST, I8_PTR, frame);
+        Instruction clear = new Instruction(Opcode.CALL, Type.VOID, memset, raw, Constant.Of(Type.I8, 0),
+                Constant.Int(8 * (rootCount + 2)), Constant.FALSE);
+        Instruction prev = new Instruction(Opcode.LOAD, I8_PTR, gcTop);
+        Instruction link = new Instruction(Opcode.STORE, Type.VOID, prev, roots);
+        Instruction countSlot = new Instruction(Opcode.GETELEMENTPTR, I8_PTR.PointerTo(), roots, Constant.ONE);
+        countSlot.SetAuxType(I8_PTR);
+        Instruction countPtr = new Instruction(Opcode.BITCAST, Type.I64.PointerTo(), countSlot);
+        Instruction count = new Instruction(Opcode.STORE, Type.VOID, Constant.Of(Type.I64, rootCount), countPtr);
+        Instruction push = new Instruction(Opcode.STORE, Type.VOID, raw, gcTop);
+
+        List<Instruction> prologue = List.of(frame, roots, raw, clear, prev, link, countSlot, countPtr, count, push);
+        BasicBlock entry = builder.GetFunction().GetEntry();
+        for(int i = 0; i < prologue.size(); i++)
+            entry.Insert(i, prologue.get(i));
+        builder.Store(prev, gcTop);
+    }
+
+    // arena_alloc(count , size) has the same contract as calloc. Requests are rounded up to 8 bytes and
+    // taken from the current chunk , a new zeroed chunk is started when it doesn't fit. Requests over 64KB
+    // (big arrays) get their own calloc so they don't waste the rest of a chunk.
+    private void AddArenaRuntime(){
+        module.AddRuntime("\n" +
+                "@_arena_next = global i8* null\n" +
+                "@_arena_end = global i8* null\n" +
+                "\n" +
+                "define i8* @arena_alloc(i32 %count, i32 %size) {\n" +
+                "entry:\n" +
+                "    %_count = sext i32 %count to i64\n" +
+                "    %_size = sext i32 %size to i64\n" +
+                "    %_bytes = mul i64 %_count, %_size\n" +
+                "    %_padded = add i64 %_bytes, 7\n" +
+                "    %_aligned = and i64 %_padded, -8\n" +
+                "    %_big = icmp ugt i64 %_aligned, 65536\n" +
+                "    br i1 %_big, label %own, label %bump\n" +
+                "own:\n" +
+                "    %_own = call i8* @calloc(i32 %count, i32 %size)\n" +
+                "    ret i8* %_own\n" +
+                "bump:\n" +
+                "    %_next = load i8*, i8** @_arena_next\n" +
+                "    %_end = load i8*, i8** @_arena_end\n" +
+                "    %_nextInt = ptrtoint i8* %_next to i64\n" +
+                "    %_endInt = ptrtoint i8* %_end to i64\n" +
+                "    %_left = sub i64 %_endInt, %_nextInt\n" +
+                "    %_fits = icmp ule i64 %_aligned, %_left\n" +
+                "    br i1 %_fits, label %take, label %refill\n" +
+                "refill:\n" +
+                "    %_chunk = call i8* @calloc(i32 1, i32 1048576)\n" +
+                "    %_chunkEnd = getelementptr i8, i8* %_chunk, i64 1048576\n" +
+                "    store i8* %_chunkEnd, i8** @_arena_end\n" +
+                "    br label %take\n" +
+                "take:\n" +
+                "    %_base = phi i8* [%_next, %bump], [%_chunk, %refill]\n" +
+                "    %_newNext = getelementptr i8, i8* %_base, i64 %_aligned\n" +
+                "    store i8* %_newNext, i8** @_arena_next\n" +
+                "    ret i8* %_base\n" +
+                "}\n");
     }
 
-    public String visit(NodeToken n, Object argu) { return n.toString(); } //Used for ids.
-    public String visit(BooleanArrayType n, Object argu) { return "boolean[]"; } //Used for boolean array types.
-    public String visit(IntegerArrayType n, Object argu) { return "int[]"; } //Used for int array types.
+    public Module GetModule() { return module; }
+    public Function GetFunction(FunctionT fun) { return functions.get(fun); }
+
+    public Value visit(Identifier n, Object argu) { return LoadVariable(n.f0.toString(), (FunctionT)argu); } //Used for ids in expressions.
+    public Value visit(ThisExpression n, Object argu) { return This(); }
+    public Value visit(IntegerLiteral n, Object argu) { return Constant.Parse(n.f0.toString()); }
+    public Value visit(TrueLiteral n, Object argu) { return Constant.TRUE; }
+    public Value visit(FalseLiteral n, Object argu) { return Constant.FALSE; }
 
     /**
      * f1 -> Identifier() class name.
      * f4 -> ( MethodDeclaration() )*
      */
-    public String visit(ClassDeclaration n, Object argu) {
-        String name = n.f1.accept(this, argu);
+    public Value visit(ClassDeclaration n, Object argu) {
+        String name = n.f1.f0.toString();
         n.f4.accept(this, symbolTable.GetClass(name));
         return null;
     }
@@ -314,8 +323,8 @@ public class GeneratorVisitor extends GJDepthFirst<String, Object> {
      * f1 -> Identifier() class name.
      * f6 -> ( MethodDeclaration() )*
      */
-    public String visit(ClassExtendsDeclaration n, Object argu) {
-        String name = n.f1.accept(this, argu);
+    public Value visit(ClassExtendsDeclaration n, Object argu) {
+        String name = n.f1.f0.toString();
         n.f6.accept(this, symbolTable.GetClass(name));
         return null;
     }
@@ -325,41 +334,38 @@ public class GeneratorVisitor extends GJDepthFirst<String, Object> {
      * f11 -> Identifier() arg
      * f15 -> ( Statement() )*
      */
-    public String visit(MainClass n, Object argu) {
-        ResetVarCounter();
-        ResetLabelCounter();
-        indentLevel = 1;
-
-        String className = n.f1.accept(this, argu);
+    public Value visit(MainClass n, Object argu) {
+        String className = n.f1.f0.toString();
         ClassT currClass = symbolTable.GetClass(className);
         FunctionT fun = currClass.GetFunction("main");
-        String argName = n.f11.accept(this, argu);
-        AllocateLocalsAndHeaD(fun);
+        AllocateLocals(fun);
 
         n.f15.accept(this, fun);
-        Emmit("\n\tret i32 0\n\n}\n");
+        LinkFrame();
+        builder.Ret(Constant.ZERO);
         return null;
     }
 
-    public void AllocateLocalsAndHeaD(FunctionT fun){
-        StringBuilder temp = new StringBuilder(Define_DeclarationPart(fun) + "{");
+    public void AllocateLocals(FunctionT fun){
+        Function function = functions.get(fun);
+        builder.SetFunction(function);
+        builder.StartBlock(builder.NewBlock());
+        locals.clear();
+        roots = null;
+        rootCount = 0;
 
-        //Allocate args / local vars.
-        for(Map.Entry<String, String> currVar : fun.GetLocalsHash().entrySet()) {
-            if(currVar.getValue().equals("String[]"))
+        //Allocate args / local vars. With the gc , objects and arrays live in the frame.
+        int argIndex = 1;
+        for(Map.Entry<String, TypeT> currVar : fun.GetLocalsHash().entrySet()) {
+            if(currVar.getValue() == TypeT.STRING_ARRAY)
                 continue;
 
-            temp.append(String.format("\n%s%%%s = %s",Indent(), currVar.getKey(),Alloca(currVar.getValue())));
-            if(fun.GetArgsHash().containsKey(currVar.getKey())){
-                String fromType = TypeToLLVM(currVar.getValue());
-                String fromValue = "%."+currVar.getKey();
-                String toType = TypeToLLVM(currVar.getValue())+"*";
-                String toValue = "%"+currVar.getKey();
-                temp.append(String.format("\n%s%s",Indent(),Store(fromType,fromValue,toType,toValue)));
-            }
+            Type type = TypeToLLVM(currVar.getValue());
+            Instruction slot = (allocator == Allocator.GC && type.IsPointer()) ? NewRoot(type) : builder.Alloca(type, currVar.getKey());
+            locals.put(currVar.getKey(), slot);
+            if(fun.GetArgsHash().containsKey(currVar.getKey()))
+                builder.Store(function.GetArgument(argIndex++), slot);
         }
-        temp.append("\n");
-        Emmit(temp.toString());
     }
 
     /**
@@ -367,22 +373,17 @@ public class GeneratorVisitor extends GJDepthFirst<String, Object> {
      * f8 -> ( Statement() )*
      * f10 -> Expression() return expr.
      */
-    public String visit(MethodDeclaration n, Object argu) {
-        ResetVarCounter();
-        ResetLabelCounter();
-        indentLevel = 1;
-
+    public Value visit(MethodDeclaration n, Object argu) {
         ClassT currClass = (ClassT)argu;
-        String funName = n.f2.accept(this, argu);
+        String funName = n.f2.f0.toString();
         FunctionT fun = currClass.GetFunction(funName);
-        AllocateLocalsAndHeaD(fun);
+        AllocateLocals(fun);
 
         n.f8.accept(this, fun);
 
-        String expr = n.f10.accept(this, fun);
-        String returnTypeLLVM = TypeToLLVM(fun.GetReturnType());
-        String val = (IsLiteral(expr)) ? expr : "%" + LoadExpression(expr,fun);
-        Emmit(String.format("\n%s%s\n}\n",Indent(),Ret(returnTypeLLVM,val)));
+        Value val = n.f10.accept(this, fun);
+        LinkFrame();
+        builder.Ret(val);
 
         return null;
     }
@@ -391,243 +392,151 @@ public class GeneratorVisitor extends GJDepthFirst<String, Object> {
      * f0 -> PrimaryExpression()
      * f2 -> PrimaryExpression()
      */
-    public String visit(PlusExpression n, Object argu) {
-        FunctionT fun = (FunctionT)argu;
-        String expr1 = n.f0.accept(this, argu);
-        String expr2 = n.f2.accept(this, argu);
-
-        // We make sure we don't load temporary values but only actual stack values.
-        String aVal = LoadExpression(expr1,fun);
-        if(!IsNumber(aVal)) aVal = "%" + aVal;
-        String bVal = LoadExpression(expr2,fun);
-        if(!IsNumber(bVal)) bVal = "%" + bVal;
-
-        String resultVar = GetVar();
-        Emmit(Indent() + Add("%" + resultVar,aVal,bVal) + "\n");
-
-        fun.GetRegisterHash().put(resultVar,"i32");
-        return resultVar;
+    public Value visit(PlusExpression n, Object argu) {
+        Value aVal = n.f0.accept(this, argu);
+        Value bVal = n.f2.accept(this, argu);
+        return builder.Binary(Opcode.ADD,aVal,bVal);
     }
 
     /** MINUS.
      * f0 -> PrimaryExpression()
      * f2 -> PrimaryExpression()
      */
-    public String visit(MinusExpression n, Object argu) {
-        FunctionT fun = (FunctionT)argu;
-        String expr1 = n.f0.accept(this, argu);
-        String expr2 = n.f2.accept(this, argu);
-
-        // We make sure we don't load temporary values but only actual stack values.
-        String aVal = LoadExpression(expr1,fun);
-        if(!IsNumber(aVal)) aVal = "%" + aVal;
-        String bVal = LoadExpression(expr2,fun);
-        if(!IsNumber(bVal)) bVal = "%" + bVal;
-
-
-        String resultVar = GetVar();
-        Emmit(Indent() + Sub("%" + resultVar,aVal,bVal) + "\n");
-
-        fun.GetRegisterHash().put(resultVar,"i32");
-        return resultVar;
+    public Value visit(MinusExpression n, Object argu) {
+        Value aVal = n.f0.accept(this, argu);
+        Value bVal = n.f2.accept(this, argu);
+        return builder.Binary(Opcode.SUB,aVal,bVal);
     }
 
     /** TIMES.
      * f0 -> PrimaryExpression()
      * f2 -> PrimaryExpression()
      */
-    public String visit(TimesExpression n, Object argu) {
-        FunctionT fun = (FunctionT)argu;
-        String expr1 = n.f0.accept(this, argu);
-        String expr2 = n.f2.accept(this, argu);
-
-        // We make sure we don't load temporary values but only actual stack values.
-        String aVal = LoadExpression(expr1,fun);
-        if(!IsNumber(aVal)) aVal = "%" + aVal;
-        String bVal = LoadExpression(expr2,fun);
-        if(!IsNumber(bVal)) bVal = "%" + bVal;
-
-        String resultVar = GetVar();
-        Emmit(Indent() + Times("%" + resultVar,aVal,bVal) + "\n");
-
-        fun.GetRegisterHash().put(resultVar,"i32");
-        return resultVar;
+    public Value visit(TimesExpression n, Object argu) {
+        Value aVal = n.f0.accept(this, argu);
+        Value bVal = n.f2.accept(this, argu);
+        return builder.Binary(Opcode.MUL,aVal,bVal);
     }
 
     /** <
      * f0 -> PrimaryExpression()
      * f2 -> PrimaryExpression()
      */
-    public String visit(CompareExpression n, Object argu) {
-        FunctionT fun = (FunctionT)argu;
-        String expr1 = n.f0.accept(this, argu);
-        String expr2 = n.f2.accept(this, argu);
-
-        // We make sure we don't load temporary values but only actual stack values.
-        String aVal = LoadExpression(expr1,fun);
-        if(!IsNumber(aVal)) aVal = "%" + aVal;
-        String bVal = LoadExpression(expr2,fun);
-        if(!IsNumber(bVal)) bVal = "%" + bVal;
-
-        String resultVar = GetVar();
-        Emmit(Indent() + Compare("%" + resultVar,aVal,bVal,true) + "\n");
-
-        fun.GetRegisterHash().put(resultVar,TypeToLLVM("boolean"));
-        return resultVar;
+    public Value visit(CompareExpression n, Object argu) {
+        Value aVal = n.f0.accept(this, argu);
+        Value bVal = n.f2.accept(this, argu);
+        return builder.ICmp(Instruction.Predicate.SLT,aVal,bVal);
     }
 
     /** ( ... )
      * f1 -> Expression()
      */
-    public String visit(BracketExpression n, Object argu) {
+    public Value visit(BracketExpression n, Object argu) {
         return n.f1.accept(this, argu);
     }
 
     /** Print.
      * f2 -> Expression()
      */
-    public String visit(PrintStatement n, Object argu) {
-        FunctionT fun = (FunctionT)argu;
-        String expr = n.f2.accept(this, argu);
-
-        String aVal = LoadExpression(expr,fun);
-        if(!IsNumber(aVal)) aVal = "%" + aVal;
-        Emmit(Indent() + String.format("call void (i32) @print_int(i32 %s)",aVal));
+    public Value visit(PrintStatement n, Object argu) {
+        Value aVal = n.f2.accept(this, argu);
+        builder.Call(Type.VOID,printInt,aVal);
         return null;
     }
 
     /** new CLASS().
      * f1 -> Identifier()
      */
-    public String visit(AllocationExpression n, Object argu) {
-        FunctionT fun = (FunctionT)argu;
+    public Value visit(AllocationExpression n, Object argu) { return NewObject(n.f1.f0.toString()); }
 
-        String className = n.f1.accept(this, argu);
+    // The code of the expressions , shared with WorklistGenerator.
+
+    Value NewObject(String className){
         ClassT classT = symbolTable.GetClass(className);
-        String temp = GetVar();
-        Emmit(Indent() + "%" +  temp + " = " + Call("i8*","@calloc",String.format("i32 1 , i32 %d",GetObjectSize(classT))));
-        String temp2 = GetVar();
-        Emmit(Indent() + "%" + temp2 + " = " + Bitcast("i8*","i8***","%" + temp,false));
-        String temp3 = GetVar();
-        String arrayType = String.format("[%d x i8*]",classT.GetFuncOffset() / 8);
-        Emmit(Indent() + String.format("%s = getelementptr %s , %s %s , i32 0 , i32 0","%" + temp3,arrayType,arrayType+"*","@." + className +"_VTable"));
-        Emmit(Indent() + Store("i8**","%" + temp3,"i8***","%" + temp2));
-
-        fun.GetRegisterHash().put(temp,className);
-        return temp;
-    }
-
-    public void CompareArrValue(String aVal,String num,boolean negArr,boolean smallerThan){
-        String lab1 = GetLabel();
-        String lab2 = GetLabel();
-        String tempNegCheck = GetVar();
-        Emmit(Indent() + Compare("%"+tempNegCheck,aVal,num,smallerThan));
-        Emmit(Indent() + Branch("%"+tempNegCheck,"%"+lab1,"%"+lab2));
-        Emmit(Indent() + lab1 + ":");
-        if(negArr) {
-            Emmit(Indent() + Call("void", "@throw_nsz", ""));
-        }else{
-            Emmit(Indent() + Call("void", "@throw_oob", ""));
-        }
-        Emmit(Indent() + Jump("%"+lab2));
-        Emmit(Indent() + lab2 + ":");
+
+        // The allocator returns i8* , the result is typed with the class so calls on it find their method.
+        GlobalVariable map = module.GetGlobal("." + className + "_PointerMap");
+        Value mapPtr = (map == null) ? Constant.Zero(Type.I32.PointerTo()) : builder.Gep(map.GetValueType(),map,Constant.ZERO,Constant.ZERO);
+        Value object = Allocate(Type.Object(className),Constant.ONE,Constant.Int(GetObjectSize(classT)),mapPtr);
+        Value vtablePtr = builder.Bitcast(object,I8_PTR.PointerTo().PointerTo());
+        GlobalVariable vtable = module.GetGlobal("." + className + "_VTable");
+        Value firstFunc = builder.Gep(vtable.GetValueType(),vtable,Constant.ZERO,Constant.ZERO);
+        builder.Store(firstFunc,vtablePtr);
+
+        return object;
+    }
+
+    public void CompareArrValue(Value aVal,Value num,boolean negArr,boolean smallerThan){
+        BasicBlock lab1 = builder.NewBlock();
+        BasicBlock lab2 = builder.NewBlock();
+        Value negCheck = builder.ICmp((smallerThan) ? Instruction.Predicate.SLT : Instruction.Predicate.SGE,aVal,num);
+        builder.Branch(negCheck,lab1,lab2);
+        builder.StartBlock(lab1);
+        builder.Call(Type.VOID,(negArr) ? throwNsz : throwOob);
+        builder.Jump(lab2);
+        builder.StartBlock(lab2);
     }
 
     /** new int[]
      * f3 -> Expression() size.
      */
-    public String visit(IntegerArrayAllocationExpression n, Object argu) {
-        FunctionT fun = (FunctionT)argu;
-        String expr = n.f3.accept(this, argu);
-        String aVal = LoadExpression(expr,fun);
-        if(!IsNumber(aVal)) aVal = "%" + aVal;
+    public Value visit(IntegerArrayAllocationExpression n, Object argu) { return NewIntArray(n.f3.accept(this, argu)); }
 
-        CompareArrValue(aVal,"0",true,true);
+    Value NewIntArray(Value aVal){
+        CompareArrValue(aVal,Constant.ZERO,true,true);
 
-        String temp = GetVar();
-        Emmit(Indent() + Add("%" + temp,aVal,"1"));
-        String temp2 = GetVar();
-        Emmit(Indent() + "%" + temp2 + " = " + Call("i8*","@calloc",String.format("i32 4 , i32 %s","%" + temp)));
-        String temp3 = GetVar();
-        Emmit(Indent() + "%" + temp3 + " = " + Bitcast("i8*","i32*","%" + temp2,false));
-        Emmit(Indent() + Store("i32",aVal,"i32*","%" + temp3));
+        Value count = builder.Binary(Opcode.ADD,aVal,Constant.ONE);
+        Value memory = Allocate(I8_PTR,Constant.Int(4),count,Constant.Zero(Type.I32.PointerTo()));
+        Value array = builder.Bitcast(memory,INT_ARRAY);
+        builder.Store(aVal,array);
 
-        fun.GetRegisterHash().put(temp3,"i32*");
-        return temp3;
+        return array;
     }
 
     /** new boolean[]
      * f3 -> Expression()
      */
-    public String visit(BooleanArrayAllocationExpression n, Object argu) {
-        FunctionT fun = (FunctionT)argu;
-        String expr = n.f3.accept(this, argu);
-        String aVal = LoadExpression(expr,fun);
-        if(!IsNumber(aVal)) aVal = "%" + aVal;
+    public Value visit(BooleanArrayAllocationExpression n, Object argu) { return NewBooleanArray(n.f3.accept(this, argu)); }
 
-        CompareArrValue(aVal,"0",true,true);
+    Value NewBooleanArray(Value aVal){
+        CompareArrValue(aVal,Constant.ZERO,true,true);
 
-        String temp = GetVar();
-        Emmit(Indent() + Add("%" + temp,aVal,"4"));
-        String temp2 = GetVar();
-        Emmit(Indent() + "%" + temp2 + " = " + Call("i8*","@calloc",String.format("i32 1 , i32 %s","%" + temp)));
-        String temp3 = GetVar();
-        Emmit(Indent() + "%" + temp3 + " = " + Bitcast("i8*","i32*","%" + temp2,false));
-        Emmit(Indent() + Store("i32",aVal,"i32*","%" + temp3));
-        String temp4 = GetVar();
-        Emmit(Indent() + "%" + temp4 + " = " + Bitcast("i32*","i1*","%" + temp3,false));
+        Value size = builder.Binary(Opcode.ADD,aVal,Constant.Int(4));
+        Value memory = Allocate(I8_PTR,Constant.ONE,size,Constant.Zero(Type.I32.PointerTo()));
+        Value sizePtr = builder.Bitcast(memory,INT_ARRAY);
+        builder.Store(aVal,sizePtr);
 
-        fun.GetRegisterHash().put(temp4,TypeToLLVM("boolean[]"));
-        return temp4;
+        return builder.Bitcast(sizePtr,BOOLEAN_ARRAY);
     }
 
     /** ASSIGNMENT E1 = E1.
      * f0 -> Identifier()
      * f2 -> Expression()
      */
-    public String visit(AssignmentStatement n, Object argu) {
-        String id = n.f0.accept(this, argu);
-
+    public Value visit(AssignmentStatement n, Object argu) {
         FunctionT fun = (FunctionT)argu;
-        String idType = GetVariableType(id,fun,true);
-        if(idType != null && idType.equals("String[]")){ // Only case where arg is used is ignored.
+        String id = n.f0.f0.toString();
+        if(fun.GetVarType(id) == TypeT.STRING_ARRAY){ // Only case where arg is used is ignored.
             return null;
         }
 
-        String expr = n.f2.accept(this, argu);
-        String aVal = LoadExpression(expr,fun);
-        if(!IsLiteral(aVal)) aVal = "%" + aVal;
-        String bVal = GetMemberPtr(id, fun);
-
-        Emmit(Indent() + Store(idType,aVal,idType + "*","%" + bVal));
+        Value aVal = n.f2.accept(this, argu);
+        builder.Store(aVal,GetVariablePtr(id,fun));
 
         return null;
     }
 
-    public String GetArrLength(String expr,FunctionT fun){
-        String aVal = LoadExpression(expr,fun);
-
-        String type = GetVariableType(expr,fun,true);
-        if(type == null)
-            type = fun.GetRegisterHash().get(aVal);
-        String temp = GetVar();
-        Emmit(Indent() + "%" + temp + " = " + Bitcast(type,"i32*","%"+aVal,false));
-        String temp2 = GetVar();
-        Emmit(Indent() + Getelementptr("i32","%" + temp,"%" + temp2,0 + ""));
-        String temp3 = GetVar();
-        Emmit(Indent() + Load("i32*","%" + temp2,"i32","%" + temp3));
-
-        fun.GetRegisterHash().put(temp3,"i32");
-        return temp3;
+    public Value GetArrLength(Value array){
+        // The length is the first i32 of both array kinds.
+        Value sizePtr = (array.GetType() == INT_ARRAY) ? array : builder.Bitcast(array,INT_ARRAY);
+        return builder.Load(sizePtr);
     }
 
     /** expr.length
      * f0 -> PrimaryExpression()
      */
-    public String visit(ArrayLength n, Object argu) {
-        FunctionT fun = (FunctionT)argu;
-        String expr = n.f0.accept(this, argu);
-        return GetArrLength(expr,fun);
+    public Value visit(ArrayLength n, Object argu) {
+        return GetArrLength(n.f0.accept(this, argu));
     }
 
     /**
@@ -635,65 +544,44 @@ public class GeneratorVisitor extends GJDepthFirst<String, Object> {
      * f2 -> Identifier() fun name.
      * f4 -> ( ExpressionList() )? args.
      */
-    public String visit(MessageSend n, Object argu) {
-        FunctionT fun = (FunctionT)argu;
-        String expr = n.f0.accept(this, argu);
-        String aVal = LoadExpression(expr,fun);
-
-        String type = GetVariableType(expr,fun,false); // if it's a var.
-        if(type == null) // if it's a returned register.
-            type = fun.GetRegisterHash().get(aVal);
-        if(type == null){ // if it's this.
-            type = fun.GetParentClass().GetName();
-        }
+    public Value visit(MessageSend n, Object argu) {
+        Value aVal = n.f0.accept(this, argu);
 
-        String funName = n.f2.accept(this, argu);
-
-        FunctionT callFun = GetFuncFromHierachy(funName,symbolTable.GetClass(type));
-        LinkedList<String> funArgs = new LinkedList();
+        LinkedList<Value> funArgs = new LinkedList<>();
+        funArgs.add(aVal);
         Object[] acceptArg = { argu , funArgs};
         n.f4.accept(this, acceptArg);
 
-        StringBuilder argString = new StringBuilder();
-        int i = 0;
-        for(String var : funArgs){
-            String tempVal = LoadExpression(var,fun);
-            if(!IsLiteral(tempVal)) tempVal = "%" + tempVal;
-            argString.append(", ").append(TypeToLLVM(callFun.GetArgs().get(i))).append(" ").append(tempVal);
-            i++;
-        }
+        return CallMethod(n.f2.f0.toString(), funArgs);
+    }
+
+    // Calls funName through the vtable of the receiver , the first of funArgs.
+    Value CallMethod(String funName, List<Value> funArgs){
+        Value aVal = funArgs.get(0);
+        ClassT classT = symbolTable.GetClass(aVal.GetType().GetClassName());
+        FunctionT callFun = classT.FindFunction(funName);
 
-        String temp = GetVar();
-        Emmit(Indent() + "%" + temp + " = " + Bitcast("i8*","i8***","%" + aVal,false));
-        String temp2 = GetVar();
-        Emmit(Indent() + Load("i8***","%"+temp,"i8**","%" + temp2));
-        String temp3 = GetVar();
-        int offset = symbolTable.GetClass(type).GetFuncOffset(funName,symbolTable) / 8;
-        Emmit(Indent() + Getelementptr("i8*","%" + temp2,"%" + temp3,offset + ""));
-        String temp4 = GetVar();
-        Emmit(Indent() + Load("i8**","%"+temp3,"i8*","%" + temp4));
-        String temp5 = GetVar();
-        Emmit(Indent() + "%" + temp5 + " = " + Bitcast("i8*",funDeclHash.get(funName),"%" + temp4,false));
-        String temp6 = GetVar();
-        String argList = "i8* " + "%" + aVal + argString;
-        String returnType = callFun.GetReturnType();
-        Emmit(Indent() + "%" + temp6 + " = " + Call(TypeToLLVM(returnType),"%" + temp5,argList));
-
-        fun.GetRegisterHash().put(temp6,returnType);
-        return temp6;
+        Value vtablePtr = builder.Bitcast(aVal,I8_PTR.PointerTo().PointerTo());
+        Value vtable = builder.Load(vtablePtr);
+        int offset = classT.GetFuncSlot(funName);
+        Value funcPtr = builder.Load(builder.Gep(I8_PTR,vtable,Constant.Int(offset)));
+        Value callee = builder.Bitcast(funcPtr,functions.get(callFun).GetType());
+
+        Instruction call = builder.Call(TypeToLLVM(callFun.GetReturnType()),callee,funArgs.toArray(new Value[0]));
+        call.SetMethod(callFun);
+        return Root(call);
     }
 
     /** arg list.
      * f0 -> Expression()
      * f1 -> ExpressionTail()
      */
-    public String visit(ExpressionList n, Object argu) {
+    public Value visit(ExpressionList n, Object argu) {
         Object[] acceptArgs = (Object[])argu;
         FunctionT fun = (FunctionT)acceptArgs[0];
-        LinkedList<String> argList = (LinkedList<String>)acceptArgs[1];
+        LinkedList<Value> argList = (LinkedList<Value>)acceptArgs[1];
 
-        String expr = n.f0.accept(this, fun);
-        argList.add(expr);
+        argList.add(n.f0.accept(this, fun));
         n.f1.accept(this, acceptArgs);
 
         return null;
@@ -702,51 +590,42 @@ public class GeneratorVisitor extends GJDepthFirst<String, Object> {
     /** , expr ... , ... )
      * f1 -> Expression()
      */
-    public String visit(ExpressionTerm n, Object argu) {
+    public Value visit(ExpressionTerm n, Object argu) {
         Object[] acceptArgs = (Object[])argu;
         FunctionT fun = (FunctionT)acceptArgs[0];
-        LinkedList<String> argList = (LinkedList<String>)acceptArgs[1];
+        LinkedList<Value> argList = (LinkedList<Value>)acceptArgs[1];
 
-        String expr = n.f1.accept(this, fun);
-        argList.add(expr);
+        argList.add(n.f1.accept(this, fun));
 
         return null;
     }
 
+    // Checks the index and returns the address of the element.
+    Value GetElementPtr(Value array, Value indexVal){
+        Value arrSize = GetArrLength(array);
+        CompareArrValue(indexVal,Constant.ZERO,false,true);
+        CompareArrValue(indexVal,arrSize,false,false);
+
+        // int[] keeps the size in the first element , boolean[] in the first 4 bytes.
+        Type elementType = array.GetType().GetElementType();
+        int sizeSkipOffset = (elementType == Type.I32) ? 1 : 4;
+        Value index = builder.Binary(Opcode.ADD,indexVal,Constant.Int(sizeSkipOffset));
+        return builder.Gep(elementType,array,index);
+    }
+
     /** array assignment.
      * f0 -> Identifier() arr name
      * f2 -> Expression() index
      * f5 -> Expression() val
      */
-    public String visit(ArrayAssignmentStatement n, Object argu) { //TODO: out of bounds check.
+    public Value visit(ArrayAssignmentStatement n, Object argu) {
         FunctionT fun = (FunctionT)argu;
 
-        String arrayId = n.f0.accept(this, argu);
-        String type = GetVariableType(arrayId,fun,true);
-
-        String tempIndex = n.f2.accept(this, argu);
-        String indexVal = LoadExpression(tempIndex,fun);
-        if(!IsLiteral(indexVal)) indexVal = "%" + indexVal; //indexVal has the register or the raw value of the index
-
-        String tempVal = n.f5.accept(this, argu);
-        String val = LoadExpression(tempVal,fun);
-        if(!IsLiteral(val)) val = "%" + val; // tempVal has the register of raw value of the RVALUE.
-
-        String arrReg = LoadExpression(arrayId,fun);
-
-        String arrSize = GetArrLength(arrayId,fun);
-        CompareArrValue(indexVal,"0",false,true);
-        CompareArrValue(indexVal,"%"+arrSize,false,false);
-
-        //Do the assignment.
-        String elementType = type.substring(0,type.length() - 1);
-        String temp = GetVar();
-        int sizeSkipOffset = (elementType.equals("i32")) ? 1 : 4;
-        Emmit(Indent() + Add("%" + temp,indexVal,sizeSkipOffset + ""));
-        String temp2 = GetVar();
-        Emmit(Indent() + Getelementptr(elementType,"%" + arrReg,"%" + temp2,"%" + temp));
-        Emmit(Indent() + Store(elementType,val,type,"%" + temp2));
+        Value indexVal = n.f2.accept(this, argu);
+        Value val = n.f5.accept(this, argu);
+        Value array = LoadVariable(n.f0.f0.toString(),fun);
 
+        builder.Store(val,GetElementPtr(array,indexVal));
         return null;
     }
 
@@ -754,43 +633,10 @@ public class GeneratorVisitor extends GJDepthFirst<String, Object> {
      * f0 -> PrimaryExpression()
      * f2 -> PrimaryExpression()
      */
-    public String visit(ArrayLookup n, Object argu) {
-        FunctionT fun = (FunctionT)argu;
-
-        String arrExpr = n.f0.accept(this, argu);
-        String arrReg = LoadExpression(arrExpr,fun); //if expr is a var.
-
-        String type = GetVariableType(arrExpr,fun,true); // if it's a var.
-        if(type == null) // if it's a returned register.
-            type = fun.GetRegisterHash().get(arrReg);
-
-        String indexExpr = n.f2.accept(this, argu);
-        String indexVal = LoadExpression(indexExpr,fun);
-        if(!IsLiteral(indexVal)) indexVal = "%" + indexVal; //indexVal has the register or the raw value of the index
-
-        String arrSize = GetArrLength(arrExpr,fun);
-        CompareArrValue(indexVal,"0",false,true);
-        CompareArrValue(indexVal,"%"+arrSize,false,false);
-
-        //Do the assignment.
-        String elementType = type.substring(0,type.length() - 1);
-        String temp = GetVar();
-        int sizeSkipOffset = (elementType.equals("i32")) ? 1 : 4;
-        Emmit(Indent() + Add("%" + temp,indexVal,sizeSkipOffset + ""));
-        String temp2 = GetVar();
-        Emmit(Indent() + Getelementptr(elementType,"%" + arrReg,"%" + temp2,"%" + temp));
-        String temp3 = GetVar();
-        Emmit(Indent() + Load(type,"%" + temp2,elementType,"%" + temp3));
-
-        return temp3;
-    }
-
-    private String Branch(String value,String lab1,String lab2){
-        return String.format("br i1 %s , label %s , label %s",value,lab1,lab2);
-    }
-
-    private String Jump(String lab1){
-        return String.format("br label %s",lab1);
+    public Value visit(ArrayLookup n, Object argu) {
+        Value array = n.f0.accept(this, argu);
+        Value indexVal = n.f2.accept(this, argu);
+        return builder.Load(GetElementPtr(array,indexVal));
     }
 
     /**
@@ -798,28 +644,25 @@ public class GeneratorVisitor extends GJDepthFirst<String, Object> {
      * f4 -> Statement()
      * f6 -> Statement() else stm
      */
-    public String  visit(IfStatement n, Object argu) {
-        FunctionT fun = (FunctionT)argu;
-        String expr = n.f2.accept(this, argu);
-        String boolExpr = LoadExpression(expr,fun);
-        if(!IsLiteral(boolExpr)) boolExpr = "%" + boolExpr;
+    public Value visit(IfStatement n, Object argu) {
+        Value boolExpr = n.f2.accept(this, argu);
 
         //branching.
-        String lab1 = GetLabel();
-        String lab2 = GetLabel();
-        String lab3 = GetLabel();
+        BasicBlock lab1 = builder.NewBlock();
+        BasicBlock lab2 = builder.NewBlock();
+        BasicBlock lab3 = builder.NewBlock();
 
-        Emmit(Indent() + Branch(boolExpr,"%"+lab1,"%"+lab2));
+        builder.Branch(boolExpr,lab1,lab2);
         // if () {
-            Emmit(Indent() + lab1 + ":");
+            builder.StartBlock(lab1);
             n.f4.accept(this, argu);
-            Emmit(Indent() + Jump("%"+lab3));
+            builder.Jump(lab3);
         // } else {
-            Emmit(Indent() + lab2 + ":");
+            builder.StartBlock(lab2);
             n.f6.accept(this, argu);
-            Emmit(Indent() + Jump("%"+lab3));
+            builder.Jump(lab3);
         // }
-        Emmit(Indent() + lab3 + ":");
+        builder.StartBlock(lab3);
 
         return null;
     }
@@ -827,40 +670,31 @@ public class GeneratorVisitor extends GJDepthFirst<String, Object> {
     /** NOT
      * f1 -> Clause()
      */
-    public String visit(NotExpression n, Object argu) {
-        FunctionT fun = (FunctionT)argu;
-        String clause = n.f1.accept(this, argu);
-        String boolExpr = LoadExpression(clause,fun);
-        if(!IsLiteral(boolExpr)) boolExpr = "%" + boolExpr;
-        String temp = GetVar();
-        Emmit(Indent() + "%" + temp + " = " + String.format("xor i1 %s , true",boolExpr));
-        return temp;
+    public Value visit(NotExpression n, Object argu) {
+        return builder.Not(n.f1.accept(this, argu));
     }
 
     /** WHILE
      * f2 -> Expression()
      * f4 -> Statement()
      */
-    public String visit(WhileStatement n, Object argu) {
-        String lab1 = GetLabel();
-        Emmit(Indent() + Jump("%"+lab1));
-        Emmit(Indent() + lab1 + ":");
+    public Value visit(WhileStatement n, Object argu) {
+        BasicBlock lab1 = builder.NewBlock();
+        builder.Jump(lab1);
+        builder.StartBlock(lab1);
 
-        FunctionT fun = (FunctionT)argu;
-        String expr = n.f2.accept(this, argu);
-        String boolExpr = LoadExpression(expr,fun);
-        if(!IsLiteral(boolExpr)) boolExpr = "%" + boolExpr;
+        Value boolExpr = n.f2.accept(this, argu);
 
-        String lab2 = GetLabel();
-        String lab3 = GetLabel();
+        BasicBlock lab2 = builder.NewBlock();
+        BasicBlock lab3 = builder.NewBlock();
 
-        /*while*/ Emmit(Indent() + Branch(boolExpr,"%"+lab2,"%"+lab3));
+        /*while*/ builder.Branch(boolExpr,lab2,lab3);
         // {
-            Emmit(Indent() + lab2 + ":");
+            builder.StartBlock(lab2);
             n.f4.accept(this, argu);
-            Emmit(Indent() + Jump("%"+lab1));
+            builder.Jump(lab1);
         // }
-        Emmit(Indent() + lab3 + ":");
+        builder.StartBlock(lab3);
 
         return null;
     }
@@ -869,32 +703,25 @@ public class GeneratorVisitor extends GJDepthFirst<String, Object> {
      * f0 -> Clause()
      * f2 -> Clause()
      */
-    public String visit(AndExpression n, Object argu) {
-        FunctionT fun = (FunctionT)argu;
-
-        String lab1 = GetLabel();
-        String lab2 = GetLabel();
-        String lab3 = GetLabel();
-
-        String clause1 = n.f0.accept(this, argu);
-        String boolExpr1 = LoadExpression(clause1,fun);
-        if(!IsLiteral(boolExpr1)) boolExpr1 = "%" + boolExpr1;
-        Emmit(Indent() + Branch(boolExpr1,"%"+lab2,"%"+lab1));
+    public Value visit(AndExpression n, Object argu) {
+        Value boolExpr1 = n.f0.accept(this, argu);
+        BasicBlock lhsEnd = builder.GetInsertBlock();
 
-        Emmit(Indent() + lab1 + ":");
-        Emmit(Indent() + Jump("%"+lab3));
+        BasicBlock rhs = builder.NewBlock();
+        BasicBlock end = builder.NewBlock();
+        builder.Branch(boolExpr1,rhs,end);
 
-        Emmit(Indent() + lab2 + ":");
-        String clause2 = n.f2.accept(this, argu);
-        String boolExpr2 = LoadExpression(clause2,fun);
-        if(!IsLiteral(boolExpr2)) boolExpr2 = "%" + boolExpr2;
-        Emmit(Indent() + Jump("%"+lab3));
+        builder.StartBlock(rhs);
+        Value boolExpr2 = n.f2.accept(this, argu);
+        BasicBlock rhsEnd = builder.GetInsertBlock(); // The right clause may have branched itself.
+        builder.Jump(end);
 
-        Emmit(Indent() + lab3 + ":");
-        String temp = GetVar();
-        Emmit(Indent() + "%" + temp + " = " + String.format("phi i1 [false, %s] , [%s, %s]","%"+lab1,boolExpr2,"%"+lab2));
+        builder.StartBlock(end);
+        Instruction phi = builder.Phi(Type.I1);
+        phi.AddIncoming(Constant.FALSE,lhsEnd);
+        phi.AddIncoming(boolExpr2,rhsEnd);
 
-        return temp;
+        return phi;
     }
 
 
@@ -0,0 +1,18 @@
+package LLVM_Generation.IR;
+
+public final class Argument extends Value {
+    // A function parameter. Written as %this or %.name .
+
+    private final Function parent;
+    private final int index;
+
+    Argument(Type type, String name, Function parent, int index){
+        super(type,name);
+        this.parent = parent;
+        this.index = index;
+    }
+
+    public Function GetParent() { return parent; }
+    public int GetIndex() { return index; }
+
+}
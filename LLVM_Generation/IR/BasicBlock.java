@@ -0,0 +1,83 @@
+package LLVM_Generation.IR;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+public final class BasicBlock extends Value {
+    /*---------------------------------------------------
+    * A straight line of instructions ending with a
+    * terminator (br / ret). The first block of a function
+    * is its entry.
+    ---------------------------------------------------*/
+
+    private final ArrayList<Instruction> instructions;
+    Function parent;
+
+    public BasicBlock(){
+        super(Type.LABEL,null);
+        this.instructions = new ArrayList<>();
+    }
+
+    public Function GetParent() { return parent; }
+    public List<Instruction> GetInstructions() { return instructions; }
+
+    public void Append(Instruction inst){
+        inst.parent = this;
+        instructions.add(inst);
+    }
+
+    public void Insert(int index, Instruction inst){
+        inst.parent = this;
+        instructions.add(index, inst);
+    }
+
+    // Inserts right before the terminator.
+    public void InsertBeforeTerminator(Instruction inst){
+        int index = instructions.size();
+        if(GetTerminator() != null)
+            index--;
+        Insert(index, inst);
+    }
+
+    public void Remove(Instruction inst){
+        instructions.remove(inst);
+        inst.parent = null;
+    }
+
+    // Returns true if any instruction was removed.
+    public boolean RemoveIf(Predicate<Instruction> filter){
+        return instructions.removeIf(inst -> {
+            if(!filter.test(inst))
+                return false;
+            inst.parent = null;
+            return true;
+        });
+    }
+
+    // Marks the block as removed, the function drops it on its next RemoveDeadBlocks.
+    public void Erase(){
+        for(Instruction inst : instructions)
+            inst.parent = null;
+        instructions.clear();
+        parent = null;
+    }
+
+    public boolean IsTerminated(){
+        return GetTerminator() != null;
+    }
+
+    public Instruction GetTerminator(){
+        if(instructions.isEmpty())
+            return null;
+        Instruction last = instructions.get(instructions.size() - 1);
+        return last.GetOpcode().IsTerminator() ? last : null;
+    }
+
+    public List<BasicBlock> GetSuccessors(){
+        Instruction term = GetTerminator();
+        return (term == null) ? Collections.emptyList() : term.GetBlocks();
+    }
+
+}
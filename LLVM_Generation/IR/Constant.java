@@ -0,0 +1,66 @@
+package LLVM_Generation.IR;
+
+public final class Constant extends Value {
+    /*-------------------------------------
+    * Integer , boolean and null constants.
+    * Integers follow java int wrap-around.
+    -------------------------------------*/
+
+    public static final Constant TRUE = new Constant(Type.I1,1);
+    public static final Constant FALSE = new Constant(Type.I1,0);
+    public static final Constant ZERO = new Constant(Type.I32,0);
+    public static final Constant ONE = new Constant(Type.I32,1);
+
+    private final int value;
+
+    private Constant(Type type, int value){
+        super(type,null);
+        this.value = value;
+    }
+
+    public static Constant Int(int value){
+        if(value == 0) return ZERO;
+        if(value == 1) return ONE;
+        return new Constant(Type.I32,value);
+    }
+
+    public static Constant Bool(boolean value) { return (value) ? TRUE : FALSE; }
+
+    public static Constant Of(Type type, int value){
+        if(type == Type.I1)
+            return Bool((value & 1) != 0);
+        return (type == Type.I32) ? Int(value) : new Constant(type,value);
+    }
+
+    // The value of a variable that was never assigned.
+    public static Constant Zero(Type type){
+        if(type.IsPointer())
+            return new Constant(type,0); // null
+        return Of(type,0);
+    }
+
+    // Parses an integer literal token , the type checker already rejected the ones outside of the int range.
+    public static Constant Parse(String literal){
+        return Int(Integer.parseInt(literal));
+    }
+
+    public int GetValue() { return value; }
+    public boolean IsTrue() { return value != 0; }
+
+    public boolean IsConstant() { return true; }
+
+    public boolean equals(Object o){
+        return (o instanceof Constant) && ((Constant)o).type == type && ((Constant)o).value == value;
+    }
+
+    public int hashCode() { return value * 31 + type.GetBits(); }
+
+    public String toString(){
+        if(type.IsPointer())
+            return "null";
+        if(type == Type.I1)
+            return (value != 0) ? "true" : "false";
+        return Integer.toString(value);
+    }
+
+}
@@ -0,0 +1,76 @@
+package LLVM_Generation.IR;
+
+import TypeChecking.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class Function extends Value {
+    /*-------------------------------------------------------
+    * A function of the module. The value of a function is
+    * its address (@name). External functions come from
+    * the runtime and have no blocks.
+    -------------------------------------------------------*/
+
+    private final Type functionType;
+    private final List<Argument> arguments;
+    private final List<BasicBlock> blocks;
+    private final boolean external;
+    private final FunctionT source; // Null for main and the runtime.
+    private final ClassT owner;
+    private boolean noReturn; // Runtime functions that exit the program.
+    private boolean allocator; // Runtime functions returning new zeroed memory (calloc , arena_alloc).
+
+    public Function(String name, Type returnType, List<Type> paramTypes, List<String> paramNames, boolean external, FunctionT source, ClassT owner){
+        super(Type.Function(returnType, paramTypes).PointerTo(), name);
+        this.functionType = type.GetElementType();
+        this.arguments = new ArrayList<>(paramTypes.size());
+        for(int i = 0; i < paramTypes.size(); i++)
+            arguments.add(new Argument(paramTypes.get(i), (paramNames == null) ? null : paramNames.get(i), this, i));
+        this.blocks = new ArrayList<>();
+        this.external = external;
+        this.source = source;
+        this.owner = owner;
+    }
+
+    public Type GetFunctionType() { return functionType; }
+    public Type GetReturnType() { return functionType.GetReturnType(); }
+    public List<Argument> GetArguments() { return arguments; }
+    public Argument GetArgument(int i) { return arguments.get(i); }
+    public List<BasicBlock> GetBlocks() { return blocks; }
+    public BasicBlock GetEntry() { return blocks.get(0); }
+    public boolean IsExternal() { return external; }
+    public FunctionT GetSource() { return source; }
+    public ClassT GetOwner() { return owner; }
+    public boolean IsNoReturn() { return noReturn; }
+    public void SetNoReturn(boolean noReturn) { this.noReturn = noReturn; }
+    public boolean IsAllocator() { return allocator; }
+    public void SetAllocator(boolean allocator) { this.allocator = allocator; }
+
+    public void AddBlock(BasicBlock block){
+        block.parent = this;
+        blocks.add(block);
+    }
+
+    public void InsertBlock(int index, BasicBlock block){
+        block.parent = this;
+        blocks.add(index, block);
+    }
+
+    // Drops the body once it has been printed (--stream).
+    public void ReleaseBlocks(){
+        blocks.clear();
+    }
+
+    // Drops every block that was emptied by a pass.
+    public void RemoveDeadBlocks(){
+        blocks.removeIf(block -> block.parent == null);
+    }
+
+    public int GetInstructionCount(){
+        int count = 0;
+        for(BasicBlock block : blocks)
+            count += block.GetInstructions().size();
+        return count;
+    }
+
+}
@@ -0,0 +1,43 @@
+package LLVM_Generation.IR;
+
+import java.util.List;
+
+public final class GlobalVariable extends Value {
+    /*-----------------------------------------------------
+    * A global of the module : a vtable (array of function
+    * pointers) , a constant array of integers or a single
+    * variable with its initial value.
+    * The value itself is a pointer to the global.
+    -----------------------------------------------------*/
+
+    private final Type valueType;
+    private final List<? extends Value> entries; // Null for a single variable.
+    private final Constant initial;
+
+    public GlobalVariable(String name, List<Function> entries){
+        this(name, Type.Array(entries.size(), Type.I8.PointerTo()), entries, null);
+    }
+
+    // constant [N x type] [values]
+    public GlobalVariable(String name, Type elementType, List<Constant> values){
+        this(name, Type.Array(values.size(), elementType), values, null);
+    }
+
+    // global type initial
+    public GlobalVariable(String name, Constant initial){
+        this(name, initial.GetType(), null, initial);
+    }
+
+    private GlobalVariable(String name, Type valueType, List<? extends Value> entries, Constant initial){
+        super(valueType.PointerTo(), name);
+        this.valueType = valueType;
+        this.entries = entries;
+        this.initial = initial;
+    }
+
+    public Type GetValueType() { return valueType; }
+    public List<? extends Value> GetEntries() { return entries; }
+    public Constant GetInitial() { return initial; }
+    public boolean IsVTable() { return entries != null && (entries.isEmpty() || entries.get(0) instanceof Function); }
+
+}
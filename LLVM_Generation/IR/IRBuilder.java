@@ -0,0 +1,117 @@
+package LLVM_Generation.IR;
+
+public final class IRBuilder {
+    /*---------------------------------------------------------
+    * Creates instructions at the end of the current block.
+    * Blocks are created detached and are added to the
+    * function when they are started , so the function keeps
+    * its blocks in the order they were filled.
+    ---------------------------------------------------------*/
+
+    private Function function;
+    private BasicBlock block;
+
+    public void SetFunction(Function function){
+        this.function = function;
+        this.block = null;
+    }
+
+    public Function GetFunction() { return function; }
+    public BasicBlock GetInsertBlock() { return block; }
+
+    public BasicBlock NewBlock() { return new BasicBlock(); }
+
+    public void StartBlock(BasicBlock block){
+        function.AddBlock(block);
+        this.block = block;
+    }
+
+    public void SetInsertPoint(BasicBlock block) { this.block = block; }
+
+    private Instruction Insert(Instruction inst){
+        block.Append(inst);
+        return inst;
+    }
+
+    /* MEMORY ------------------------------------------ */
+
+    public Instruction Alloca(Type type, String name){
+        Instruction inst = new Instruction(Opcode.ALLOCA, type.PointerTo());
+        inst.SetAuxType(type);
+        inst.SetName(name);
+        return Insert(inst);
+    }
+
+    public Instruction Load(Value ptr){
+        return Insert(new Instruction(Opcode.LOAD, ptr.GetType().GetElementType(), ptr));
+    }
+
+    public Instruction Store(Value value, Value ptr){
+        return Insert(new Instruction(Opcode.STORE, Type.VOID, value, ptr));
+    }
+
+    // Single index : sourceType* , two indices into an array : element*.
+    public Instruction Gep(Type sourceType, Value base, Value... indices){
+        Type result = (indices.length == 1) ? sourceType.PointerTo() : sourceType.GetElementType().PointerTo();
+        Value[] operands = new Value[indices.length + 1];
+        operands[0] = base;
+        System.arraycopy(indices, 0, operands, 1, indices.length);
+        Instruction inst = new Instruction(Opcode.GETELEMENTPTR, result, operands);
+        inst.SetAuxType(sourceType);
+        return Insert(inst);
+    }
+
+    public Instruction Bitcast(Value value, Type to){
+        return Insert(new Instruction(Opcode.BITCAST, to, value));
+    }
+
+    /* ARITHMETIC -------------------------------------- */
+
+    public Instruction Binary(Opcode opcode, Value a, Value b){
+        return Insert(new Instruction(opcode, a.GetType(), a, b));
+    }
+
+    public Instruction Not(Value value){
+        return Binary(Opcode.XOR, value, Constant.TRUE);
+    }
+
+    public Instruction ICmp(Instruction.Predicate predicate, Value a, Value b){
+        Instruction inst = new Instruction(Opcode.ICMP, Type.I1, a, b);
+        inst.SetPredicate(predicate);
+        return Insert(inst);
+    }
+
+    public Instruction Phi(Type type){
+        return Insert(new Instruction(Opcode.PHI, type));
+    }
+
+    /* CALLS ------------------------------------------- */
+
+    // The result type is given so callers can keep the class of a returned object.
+    public Instruction Call(Type returnType, Value callee, Value... args){
+        Value[] operands = new Value[args.length + 1];
+        operands[0] = callee;
+        System.arraycopy(args, 0, operands, 1, args.length);
+        return Insert(new Instruction(Opcode.CALL, returnType, operands));
+    }
+
+    /* TERMINATORS ------------------------------------- */
+
+    public Instruction Branch(Value cond, BasicBlock ifTrue, BasicBlock ifFalse){
+        Instruction inst = new Instruction(Opcode.BR, Type.VOID, cond);
+        inst.AddBlock(ifTrue);
+        inst.AddBlock(ifFalse);
+        return Insert(inst);
+    }
+
+    public Instruction Jump(BasicBlock target){
+        Instruction inst = new Instruction(Opcode.JUMP, Type.VOID);
+        inst.AddBlock(target);
+        return Insert(inst);
+    }
+
+    public Instruction Ret(Value value){
+        return Insert(new Instruction(Opcode.RET, Type.VOID, value));
+    }
+
+}
@@ -0,0 +1,131 @@
+package LLVM_Generation.IR;
+
+import TypeChecking.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public final class Instruction extends Value {
+    /*-----------------------------------------------------------------
+    * One llvm instruction. The result of the instruction is the
+    * instruction itself.
+    * Operands per opcode :
+    *   alloca : -                     (allocated type)
+    *   load : ptr
+    *   store : value , ptr
+    *   binary / icmp : left , right
+    *   getelementptr : base , indices (source element type)
+    *   bitcast : value
+    *   call : callee , arguments
+    *   phi : incoming values          (blocks : incoming blocks)
+    *   br : condition                 (blocks : true , false)
+    *   jump : -                       (blocks : target)
+    *   ret : value
+    -----------------------------------------------------------------*/
+
+    public enum Predicate {
+        SLT("slt"), SLE("sle"), SGT("sgt"), SGE("sge"), EQ("eq"), NE("ne");
+
+        private final String text;
+        Predicate(String text) { this.text = text; }
+        public String toString() { return text; }
+    }
+
+    private final Opcode opcode;
+    private final ArrayList<Value> operands;
+    private final ArrayList<BasicBlock> blocks;
+    private Type auxType;
+    private Predicate predicate;
+    private FunctionT method; // The called method of a virtual call.
+    BasicBlock parent;
+
+    public Instruction(Opcode opcode, Type type, Value... operands){
+        super(type,null);
+        this.opcode = opcode;
+        this.operands = new ArrayList<>(operands.length);
+        for(Value operand : operands)
+            this.operands.add(operand);
+        this.blocks = new ArrayList<>(2);
+    }
+
+    public Opcode GetOpcode() { return opcode; }
+    public BasicBlock GetParent() { return parent; }
+    public boolean HasResult() { return !type.IsVoid(); }
+
+    public void SetName(String name) { this.name = name; }
+
+    /*------- Operands -------*/
+
+    public List<Value> GetOperands() { return operands; }
+    public int GetOperandCount() { return operands.size(); }
+    public Value GetOperand(int i) { return operands.get(i); }
+    public void SetOperand(int i, Value value) { operands.set(i, value); }
+    public void AddOperand(Value value) { operands.add(value); }
+
+    public List<BasicBlock> GetBlocks() { return blocks; }
+    public BasicBlock GetBlock(int i) { return blocks.get(i); }
+    public void SetBlock(int i, BasicBlock block) { blocks.set(i, block); }
+    public void AddBlock(BasicBlock block) { blocks.add(block); }
+
+    // Rewrites every operand found in the map. Chains of replacements are followed.
+    public void ReplaceOperands(Map<Value,Value> replacements){
+        for(int i = 0; i < operands.size(); i++){
+            Value operand = operands.get(i);
+            Value replacement = replacements.get(operand);
+            if(replacement == null)
+                continue;
+            while(replacements.containsKey(replacement))
+                replacement = replacements.get(replacement);
+            operands.set(i, replacement);
+        }
+    }
+
+    /*------- Opcode specific -------*/
+
+    public Type GetAllocatedType() { return auxType; } // alloca
+    public Type GetSourceType() { return auxType; } // getelementptr
+    public void SetAuxType(Type auxType) { this.auxType = auxType; }
+
+    public Predicate GetPredicate() { return predicate; }
+    public void SetPredicate(Predicate predicate) { this.predicate = predicate; }
+
+    public Value GetCallee() { return operands.get(0); }
+    public void SetCallee(Value callee) { operands.set(0, callee); }
+    public int GetArgCount() { return operands.size() - 1; }
+    public Value GetArg(int i) { return operands.get(i + 1); }
+    public FunctionT GetMethod() { return method; }
+    public boolean IsVirtualCall() { return method != null; }
+    public void SetMethod(FunctionT method) { this.method = method; }
+
+    public void AddIncoming(Value value, BasicBlock block){
+        operands.add(value);
+        blocks.add(block);
+    }
+
+    public int GetIncomingCount() { return operands.size(); }
+    public Value GetIncomingValue(int i) { return operands.get(i); }
+    public BasicBlock GetIncomingBlock(int i) { return blocks.get(i); }
+
+    public void RemoveIncoming(BasicBlock block){
+        for(int i = blocks.size() - 1; i >= 0; i--)
+            if(blocks.get(i) == block){
+                blocks.remove(i);
+                operands.remove(i);
+            }
+    }
+
+    // A copy without a parent block. Operands and blocks are mapped through the given maps when found there.
+    public Instruction Clone(Map<Value,Value> values, Map<BasicBlock,BasicBlock> blockMap){
+        Instruction copy = new Instruction(opcode, type);
+        for(Value operand : operands)
+            copy.operands.add(values.getOrDefault(operand, operand));
+        for(BasicBlock block : blocks)
+            copy.blocks.add(blockMap.getOrDefault(block, block));
+        copy.auxType = auxType;
+        copy.predicate = predicate;
+        copy.method = method;
+        copy.name = name;
+        return copy;
+    }
+
+}
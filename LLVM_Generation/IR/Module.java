@@ -0,0 +1,61 @@
+package LLVM_Generation.IR;
+
+import TypeChecking.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public final class Module {
+    /*---------------------------------------------------------
+    * Everything generated for one input file.
+    * The runtime is kept as text , its functions are added
+    * as external functions so they can be called.
+    ---------------------------------------------------------*/
+
+    private final List<GlobalVariable> globals;
+    private final List<String> runtime;
+    private final List<Function> functions;
+    private final Map<String,Function> functionsByName;
+    private final Map<String,GlobalVariable> globalsByName;
+    private final Map<String,ClassT> classes; // The classes of the program , for whole program passes.
+
+    public Module(){
+        this.globals = new ArrayList<>();
+        this.runtime = new ArrayList<>();
+        this.functions = new ArrayList<>();
+        this.functionsByName = SymbolTable.CreateMap();
+        this.globalsByName = SymbolTable.CreateMap();
+        this.classes = SymbolTable.CreateMap();
+    }
+
+    public void AddGlobal(GlobalVariable global){
+        globals.add(global);
+        globalsByName.put(global.GetName(), global);
+    }
+
+    public void AddRuntime(String text) { runtime.add(text); }
+
+    public void AddFunction(Function fun){
+        functions.add(fun);
+        functionsByName.put(fun.GetName(), fun);
+    }
+
+    public void AddClass(ClassT classT) { classes.put(classT.GetName(), classT); }
+
+    public List<GlobalVariable> GetGlobals() { return globals; }
+    public GlobalVariable GetGlobal(String name) { return globalsByName.get(name); }
+    public List<String> GetRuntime() { return runtime; }
+    public List<Function> GetFunctions() { return functions; }
+    public Function GetFunction(String name) { return functionsByName.get(name); }
+    public ClassT GetClass(String name) { return classes.get(name); }
+    public Collection<ClassT> GetClasses() { return classes.values(); }
+
+    public int GetInstructionCount(){
+        int count = 0;
+        for(Function fun : functions)
+            count += fun.GetInstructionCount();
+        return count;
+    }
+
+}
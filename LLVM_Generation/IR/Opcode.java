@@ -0,0 +1,29 @@
+package LLVM_Generation.IR;
+
+public enum Opcode {
+    ALLOCA,
+    LOAD,
+    STORE,
+    ADD,
+    SUB,
+    MUL,
+    XOR,
+    ICMP,
+    GETELEMENTPTR,
+    BITCAST,
+    CALL,
+    PHI,
+    BR, // Conditional branch.
+    JUMP, // Unconditional branch.
+    RET;
+
+    public boolean IsTerminator() { return this == BR || this == JUMP || this == RET; }
+
+    public boolean IsBinary() { return this == ADD || this == SUB || this == MUL || this == XOR; }
+
+    // No side effects, so the instruction can be dropped when its result is unused.
+    public boolean IsPure() {
+        return IsBinary() || this == ICMP || this == GETELEMENTPTR || this == BITCAST || this == PHI || this == LOAD || this == ALLOCA;
+    }
+
+}
@@ -0,0 +1,146 @@
+package LLVM_Generation.IR;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+public final class Type {
+    /*--------------------------------------------------------
+    * llvm types. Every type is created once so types can be
+    * compared by identity.
+    * Object types are pointers to instances of a MiniJava class.
+    * They are written as i8* but remember the class so the
+    * generator doesnt have to look it up again.
+    * Arrays and functions are interned by the identity of their
+    * parts , not by their text , since every object type is
+    * written as i8*.
+    * Interned types are only weakly held : a type stays the
+    * same object while any module uses it and is dropped
+    * after , so a long running server doesn't keep the class
+    * names and signatures of every file it ever compiled.
+    --------------------------------------------------------*/
+
+    public enum Kind { VOID, INTEGER, POINTER, OBJECT, ARRAY, FUNCTION, LABEL }
+
+    private static final Map<Object,TypeRef> objectTypes = new ConcurrentHashMap<>(); // By class name.
+    private static final Map<Object,TypeRef> arrayTypes = new ConcurrentHashMap<>(); // By count and element.
+    private static final Map<Object,TypeRef> functionTypes = new ConcurrentHashMap<>(); // By return and param types.
+    private static final ReferenceQueue<Type> released = new ReferenceQueue<>();
+
+    private static final class TypeRef extends WeakReference<Type> {
+        final Map<Object,TypeRef> map;
+        final Object key;
+
+        TypeRef(Map<Object,TypeRef> map, Object key, Type type){
+            super(type, released);
+            this.map = map;
+            this.key = key;
+        }
+    }
+
+    public static final Type VOID = new Type(Kind.VOID,0,null,0,null,null,"void");
+    public static final Type LABEL = new Type(Kind.LABEL,0,null,0,null,null,"label");
+    public static final Type I1 = new Type(Kind.INTEGER,1,null,0,null,null,"i1");
+    public static final Type I8 = new Type(Kind.INTEGER,8,null,0,null,null,"i8");
+    public static final Type I32 = new Type(Kind.INTEGER,32,null,0,null,null,"i32");
+    public static final Type I64 = new Type(Kind.INTEGER,64,null,0,null,null,"i64");
+
+    private final Kind kind;
+    private final int bits;
+    private final Type element; // Pointee / array element / return type.
+    private final int count;
+    private final Type[] params;
+    private final String className;
+    private final String text;
+    private Type pointer; // Cached pointer to this type.
+
+    private Type(Kind kind, int bits, Type element, int count, Type[] params, String className, String text){
+        this.kind = kind;
+        this.bits = bits;
+        this.element = element;
+        this.count = count;
+        this.params = params;
+        this.className = className;
+        this.text = text;
+    }
+
+    // The live type of key , or a new one from create.
+    private static Type Intern(Map<Object,TypeRef> map, Object key, Supplier<Type> create){
+        for(Reference<? extends Type> ref; (ref = released.poll()) != null; ) { // Entries of dropped types.
+            TypeRef dropped = (TypeRef)ref;
+            dropped.map.remove(dropped.key, dropped);
+        }
+        while(true){
+            TypeRef ref = map.get(key);
+            Type type = (ref != null) ? ref.get() : null;
+            if(type != null)
+                return type;
+            type = create.get();
+            TypeRef created = new TypeRef(map, key, type);
+            if((ref == null) ? map.putIfAbsent(key, created) == null : map.replace(key, ref, created))
+                return type;
+        }
+    }
+
+    public static Type Object(String className){
+        return Intern(objectTypes, className, () -> new Type(Kind.OBJECT,0,I8,0,null,className,"i8*"));
+    }
+
+    public static Type Array(int count, Type element){
+        String text = "[" + count + " x " + element + "]";
+        return Intern(arrayTypes, List.of(count, element), () -> new Type(Kind.ARRAY,0,element,count,null,null,text));
+    }
+
+    public static Type Function(Type returnType, List<Type> params){
+        StringBuilder text = new StringBuilder(returnType.text).append(" (");
+        for(int i = 0; i < params.size(); i++)
+            text.append((i == 0) ? "" : ", ").append(params.get(i).text);
+        text.append(')');
+        Type[] paramArr = params.toArray(new Type[0]);
+        List<Type> key = new ArrayList<>(params.size() + 1); // Types compare by identity.
+        key.add(returnType);
+        key.addAll(params);
+        return Intern(functionTypes, key, () -> new Type(Kind.FUNCTION,0,returnType,0,paramArr,null,text.toString()));
+    }
+
+    public synchronized Type PointerTo(){
+        if(pointer == null)
+            pointer = new Type(Kind.POINTER,0,this,0,null,null,text + "*");
+        return pointer;
+    }
+
+    public Kind GetKind() { return kind; }
+    public boolean IsVoid() { return kind == Kind.VOID; }
+    public boolean IsInteger() { return kind == Kind.INTEGER; }
+    public boolean IsPointer() { return kind == Kind.POINTER || kind == Kind.OBJECT; } // Objects are i8*.
+    public boolean IsObject() { return kind == Kind.OBJECT; }
+    public boolean IsFunction() { return kind == Kind.FUNCTION; }
+
+    public int GetBits() { return bits; }
+    public Type GetElementType() { return element; } // Pointee or array element.
+    public Type GetReturnType() { return element; }
+    public int GetCount() { return count; }
+    public int GetParamCount() { return params.length; }
+    public Type GetParam(int i) { return params[i]; }
+    public String GetClassName() { return className; }
+
+    // Size in bytes as laid out in memory.
+    public int GetSize(){
+        switch (kind){
+            case INTEGER:
+                return (bits <= 8) ? 1 : bits / 8;
+            case ARRAY:
+                return count * element.GetSize();
+            default:
+                return 8;
+        }
+    }
+
+    public String toString() { return text; }
+
+}
@@ -0,0 +1,29 @@
+package LLVM_Generation.IR;
+
+public abstract class Value {
+    /*----------------------------------------------
+    * Anything that can be used as an operand.
+    * Unnamed values get their number from the
+    * printer, named ones keep their name.
+    ----------------------------------------------*/
+
+    protected Type type;
+    protected String name; // Null for temporaries.
+    private int number; // Assigned by the printer. Used as a suffix for repeated names.
+
+    protected Value(Type type, String name){
+        this.type = type;
+        this.name = name;
+        this.number = -1;
+    }
+
+    public Type GetType() { return type; }
+    public String GetName() { return name; }
+    public boolean HasName() { return name != null; }
+
+    public boolean IsConstant() { return false; }
+
+    public int GetNumber() { return number; }
+    public void SetNumber(int number) { this.number = number; }
+
+}
@@ -0,0 +1,165 @@
+package LLVM_Generation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+public class IROutput implements Closeable {
+    /*--------------------------------------------------------
+    * Sink for the generated llvm code.
+    * Text is appended into a reusable buffer and only handed
+    * to the destination once the buffer is large enough.
+    * Write failures are thrown as UncheckedIOException since
+    * the visitors cant throw checked exceptions.
+    * A file output is written to a temporary file that only
+    * replaces the .ll file on Commit(), so a failed or
+    * interrupted compilation never leaves a partial .ll behind.
+    --------------------------------------------------------*/
+
+    private static final int FLUSH_THRESHOLD = 1 << 16;
+
+    private final StringBuilder buffer;
+    private final WritableByteChannel channel; // Null when writing to an Appendable.
+    private final Appendable appendable;
+    private final OutputStream stream;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer bytes;
+
+    private final Path tempFile; // Only for file outputs.
+    private final Path targetFile;
+    private boolean closed;
+
+    private IROutput(WritableByteChannel channel, OutputStream stream, Appendable appendable, Path tempFile, Path targetFile){
+        this.buffer = new StringBuilder(FLUSH_THRESHOLD + 1024);
+        this.channel = channel;
+        this.stream = stream;
+        this.appendable = appendable;
+        this.encoder = (channel != null) ? StandardCharsets.UTF_8.newEncoder() : null;
+        this.bytes = (channel != null) ? ByteBuffer.allocateDirect(FLUSH_THRESHOLD) : null;
+        this.tempFile = tempFile;
+        this.targetFile = targetFile;
+        this.closed = false;
+    }
+
+    public static IROutput ToFile(Path target) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        // Not Files.createTempFile , its file is only readable by the owner and the move would keep that.
+        Path temp = dir.resolve(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        return new IROutput(channel, null, null, temp, target);
+    }
+
+    public static IROutput ToStream(OutputStream stream){
+        return new IROutput(Channels.newChannel(stream), stream, null, null, null);
+    }
+
+    public static IROutput ToAppendable(Appendable appendable){
+        return new IROutput(null, null, appendable, null, null);
+    }
+
+    public IROutput Append(CharSequence str){
+        buffer.append(str);
+        FlushIfFull();
+        return this;
+    }
+
+    public IROutput Append(char c){
+        buffer.append(c);
+        FlushIfFull();
+        return this;
+    }
+
+    public IROutput Append(int value){
+        buffer.append(value);
+        FlushIfFull();
+        return this;
+    }
+
+    private void FlushIfFull(){
+        if(buffer.length() >= FLUSH_THRESHOLD)
+            Flush();
+    }
+
+    public void Flush(){
+        if(buffer.length() == 0)
+            return;
+        try {
+            if(channel != null)
+                WriteEncoded();
+            else
+                appendable.append(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.setLength(0);
+    }
+
+    private void WriteEncoded() throws IOException {
+        CharBuffer chars = CharBuffer.wrap(buffer);
+        encoder.reset();
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, bytes, true);
+            if(result.isError())
+                result.throwException();
+            WriteBytes();
+        } while(result.isOverflow());
+
+        while(encoder.flush(bytes).isOverflow())
+            WriteBytes();
+        WriteBytes();
+    }
+
+    private void WriteBytes() throws IOException {
+        bytes.flip();
+        while(bytes.hasRemaining())
+            channel.write(bytes);
+        bytes.clear();
+    }
+
+    // Writes out everything that is still buffered and, for files, moves the finished output in place.
+    public void Commit() throws IOException {
+        try {
+            Flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if(tempFile != null) {
+            channel.close();
+            Files.move(tempFile, targetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }else if(stream != null) {
+            stream.flush(); // Stream outputs belong to the caller so they are not closed.
+        }
+        closed = true;
+    }
+
+    // Drops the output if it was not committed.
+    public void close() throws IOException {
+        if(closed)
+            return;
+        closed = true;
+        buffer.setLength(0);
+        if(tempFile != null) {
+            try {
+                channel.close();
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+}
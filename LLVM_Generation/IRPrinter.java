@@ -0,0 +1,81 @@
+package LLVM_Generation;
+
+import LLVM_Generation.IR.*;
+import LLVM_Generation.IR.Module;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class IRPrinter {
+    /*---------------------------------------------------------
+    * Serializes a module as llvm text.
+    * Temporaries and labels are numbered per function in the
+    * order they are printed. Repeated names (e.g. locals of
+    * inlined functions) get a numeric suffix.
+    ---------------------------------------------------------*/
+
+    private final InstructionWriter writer;
+
+    public IRPrinter(IROutput output){
+        this.writer = new InstructionWriter(output);
+    }
+
+    public void Print(Module module){
+        PrintDeclarations(module);
+        for(Function fun : module.GetFunctions())
+            if(!fun.IsExternal())
+                PrintFunction(fun);
+    }
+
+    // The globals and the runtime , everything before the functions.
+    public void PrintDeclarations(Module module){
+        for(GlobalVariable global : module.GetGlobals())
+            writer.Global(global);
+
+        for(String runtime : module.GetRuntime())
+            writer.Line(runtime);
+    }
+
+    public void PrintFunction(Function fun){
+        NumberValues(fun);
+
+        writer.SetIndent(0);
+        writer.Define(fun);
+        writer.SetIndent(1);
+        for(BasicBlock block : fun.GetBlocks()){
+            writer.LabelDef(block); // The entry block is labeled too , a phi may refer to it.
+            for(Instruction inst : block.GetInstructions())
+                writer.Write(inst);
+        }
+        writer.SetIndent(0);
+        writer.Line("}");
+        writer.BlankLine();
+    }
+
+    private void NumberValues(Function fun){
+        Map<String,Integer> names = new HashMap<>();
+        for(Argument arg : fun.GetArguments())
+            NumberName(arg, names);
+
+        int temps = 0;
+        int labels = 0;
+        for(BasicBlock block : fun.GetBlocks()){
+            block.SetNumber(labels++);
+            for(Instruction inst : block.GetInstructions()){
+                if(!inst.HasResult())
+                    continue;
+                if(inst.HasName())
+                    NumberName(inst, names);
+                else
+                    inst.SetNumber(temps++);
+            }
+        }
+    }
+
+    private static void NumberName(Value value, Map<String,Integer> names){
+        Integer seen = names.get(value.GetName());
+        value.SetNumber((seen == null) ? -1 : seen);
+        names.put(value.GetName(), (seen == null) ? 1 : seen + 1);
+    }
+
+}
@@ -0,0 +1,221 @@
+package LLVM_Generation;
+
+import LLVM_Generation.IR.*;
+
+public class InstructionWriter {
+    /*--------------------------------------------------------
+    * Writes llvm instructions straight into the output buffer.
+    * Operands and counters are appended piece by piece so no
+    * format string is parsed and no intermediate string is
+    * built for an instruction.
+    * Temporaries and labels must be numbered by the printer
+    * before their function is written.
+    --------------------------------------------------------*/
+
+    private final IROutput out;
+    private int indentLevel;
+
+    public InstructionWriter(IROutput out){
+        this.out = out;
+        this.indentLevel = 0;
+    }
+
+    public void SetIndent(int indentLevel) { this.indentLevel = indentLevel; }
+
+    /* OPERANDS ---------------------------------------- */
+
+    public InstructionWriter Raw(CharSequence str){
+        out.Append(str);
+        return this;
+    }
+
+    public InstructionWriter Raw(int value){
+        out.Append(value);
+        return this;
+    }
+
+    public InstructionWriter Type(Type type){
+        out.Append(type.toString());
+        return this;
+    }
+
+    public InstructionWriter Temp(int id){
+        out.Append("%_").Append(id).Append(".t");
+        return this;
+    }
+
+    public InstructionWriter Label(int id){
+        out.Append("%_").Append(id).Append(".label");
+        return this;
+    }
+
+    public InstructionWriter Value(Value value){
+        if(value instanceof Constant)
+            return Raw(value.toString());
+        if(value instanceof GlobalVariable || value instanceof Function)
+            return Raw("@").Raw(value.GetName());
+        if(value instanceof BasicBlock)
+            return Label(value.GetNumber());
+        if(!value.HasName())
+            return Temp(value.GetNumber());
+
+        out.Append('%').Append(value.GetName());
+        int suffix = value.GetNumber();
+        if(suffix >= 0)
+            out.Append('.').Append(suffix);
+        return this;
+    }
+
+    // type value
+    public InstructionWriter Typed(Value value){
+        return Type(value.GetType()).Raw(" ").Value(value);
+    }
+
+    private void Indent(){
+        for(int i = 0; i < indentLevel; i++)
+            out.Append('\t');
+    }
+
+    private InstructionWriter Begin(Instruction inst){ // Indent + "%dst = "
+        Indent();
+        if(inst.HasResult())
+            Value(inst).Raw(" = ");
+        return this;
+    }
+
+    private void End(){
+        out.Append('\n');
+    }
+
+    public void Line(CharSequence str){
+        out.Append(str);
+        End();
+    }
+
+    public void BlankLine(){
+        End();
+    }
+
+    /* INSTRUCTIONS ------------------------------------ */
+
+    public void Write(Instruction inst){
+        Begin(inst);
+        switch (inst.GetOpcode()){
+            case ALLOCA: // %name = alloca type
+                Raw("alloca ").Type(inst.GetAllocatedType());
+                break;
+            case LOAD: // %dst = load type, type* ptr
+                Raw("load ").Type(inst.GetType()).Raw(", ").Typed(inst.GetOperand(0));
+                break;
+            case STORE: // store type value , type* ptr
+                Raw("store ").Typed(inst.GetOperand(0)).Raw(" , ").Typed(inst.GetOperand(1));
+                break;
+            case ADD:
+            case SUB:
+            case MUL:
+            case XOR: // %dst = op type a , b
+                Raw(BinaryName(inst.GetOpcode())).Raw(" ").Typed(inst.GetOperand(0)).Raw(" , ").Value(inst.GetOperand(1));
+                break;
+            case ICMP: // %dst = icmp pred type a , b
+                Raw("icmp ").Raw(inst.GetPredicate().toString()).Raw(" ").Typed(inst.GetOperand(0)).Raw(" , ").Value(inst.GetOperand(1));
+                break;
+            case GETELEMENTPTR: // %dst = getelementptr type, type* base, i32 index ...
+                Raw("getelementptr ").Type(inst.GetSourceType());
+                for(Value operand : inst.GetOperands())
+                    Raw(", ").Typed(operand);
+                break;
+            case BITCAST: // %dst = bitcast fromType value to toType
+                Raw("bitcast ").Typed(inst.GetOperand(0)).Raw(" to ").Type(inst.GetType());
+                break;
+            case CALL: // %dst = call returnType callee(type arg, ...)
+                Raw("call ").Type(inst.GetType()).Raw(" ").Value(inst.GetCallee()).Raw("(");
+                for(int i = 0; i < inst.GetArgCount(); i++){
+                    if(i > 0)
+                        Raw(", ");
+                    Typed(inst.GetArg(i));
+                }
+                Raw(")");
+                break;
+            case PHI: // %dst = phi type [value, %label] , ...
+                Raw("phi ").Type(inst.GetType()).Raw(" ");
+                for(int i = 0; i < inst.GetIncomingCount(); i++){
+                    if(i > 0)
+                        Raw(" , ");
+                    Raw("[").Value(inst.GetIncomingValue(i)).Raw(", ").Value(inst.GetIncomingBlock(i)).Raw("]");
+                }
+                break;
+            case BR: // br i1 cond , label %l1 , label %l2
+                Raw("br ").Typed(inst.GetOperand(0)).Raw(" , label ").Value(inst.GetBlock(0)).Raw(" , label ").Value(inst.GetBlock(1));
+                break;
+            case JUMP: // br label %l
+                Raw("br label ").Value(inst.GetBlock(0));
+                break;
+            case RET: // ret type value
+                Raw("ret ").Typed(inst.GetOperand(0));
+                break;
+        }
+        End();
+    }
+
+    private static String BinaryName(Opcode opcode){
+        switch (opcode){
+            case ADD:
+                return "add";
+            case SUB:
+                return "sub";
+            case MUL:
+                return "mul";
+            default:
+                return "xor";
+        }
+    }
+
+    // _N.label:
+    public void LabelDef(BasicBlock block){
+        Indent();
+        Raw("_").Raw(block.GetNumber()).Raw(".label:");
+        End();
+    }
+
+    /* DEFINITIONS ------------------------------------- */
+
+    // define returnType @name(type %arg,...) {
+    public void Define(Function fun){
+        Raw("define ").Type(fun.GetReturnType()).Raw(" @").Raw(fun.GetName()).Raw("(");
+        boolean first = true;
+        for(Argument arg : fun.GetArguments()){
+            if(!first)
+                Raw(",");
+            Typed(arg);
+            first = false;
+        }
+        Raw(") {");
+        End();
+    }
+
+    // @.Class_VTable = global [N x i8*] [i8* bitcast (funType* @Class.fun to i8*),...]
+    // @name = constant [N x type] [type value,...]
+    // @name = global type initial
+    public void Global(GlobalVariable global){
+        Raw("@").Raw(global.GetName());
+        if(global.GetEntries() == null) {
+            Raw(" = global ").Typed(global.GetInitial());
+            End();
+            return;
+        }
+        Raw(global.IsVTable() ? " = global " : " = constant ").Type(global.GetValueType()).Raw(" [");
+        boolean first = true;
+        for(Value entry : global.GetEntries()){
+            if(!first)
+                Raw(",");
+            if(global.IsVTable())
+                Raw("i8* bitcast (").Typed(entry).Raw(" to i8*)");
+            else
+                Typed(entry);
+            first = false;
+        }
+        Raw("]");
+        End();
+    }
+
+}
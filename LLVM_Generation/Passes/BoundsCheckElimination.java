@@ -0,0 +1,265 @@
+package LLVM_Generation.Passes;
+
+import LLVM_Generation.IR.*;
+
+import java.util.*;
+
+public class BoundsCheckElimination extends Pass {
+    /*-------------------------------------------------------------
+    * Removes the checks of array accesses (index < 0 , index >=
+    * length) and allocations (size < 0) that can't fail.
+    * Facts a < b and a >= b are collected from the branches that
+    * dominate a check : the loop condition (i < a.length) , both
+    * sides of an && and the checks that were kept. A range
+    * analysis finds the values that are never negative :
+    *   - constants >= 0 and array lengths ,
+    *   - phis of such values , so a counter that starts at zero
+    *     and is incremented by one while below some bound ,
+    *   - x - c when a fact says x >= c.
+    * index >= a.length can't be true when a fact says index < a
+    * length of the same array , lengths never change.
+    * A check that may fail is kept , so out of bounds accesses
+    * still exit with the same error. Runs after mem2reg , locals
+    * loaded from memory prove nothing.
+    -------------------------------------------------------------*/
+
+    // lhs < rhs , or lhs >= rhs when less is false.
+    private static final class Fact {
+        final Value lhs;
+        final boolean less;
+        final Value rhs;
+
+        Fact(Value lhs, boolean less, Value rhs){
+            this.lhs = lhs;
+            this.less = less;
+            this.rhs = rhs;
+        }
+    }
+
+    private DominatorTree domTree;
+    private final Map<BasicBlock,List<Fact>> facts = new HashMap<>(); // Facts that hold on entry of each block.
+    private Set<Value> nonNegative;
+
+    public String GetName() { return "bce"; }
+
+    protected void RunOnFunction(Function fun){
+        domTree = new DominatorTree(fun);
+        facts.clear();
+        nonNegative = NonNegativeValues();
+
+        Map<Value,Value> replacements = new HashMap<>();
+        for(BasicBlock block : domTree.GetReversePostOrder()) {
+            Instruction term = block.GetTerminator();
+            if(term == null || term.GetOpcode() != Opcode.BR || !Cfg.IsNoReturn(term.GetBlock(0)))
+                continue;
+            if(!(term.GetOperand(0) instanceof Instruction))
+                continue;
+            Instruction check = (Instruction)term.GetOperand(0);
+            if(check.GetOpcode() == Opcode.ICMP && check.GetParent() == block && CantFail(check, block))
+                replacements.put(check, Constant.FALSE);
+        }
+        if(replacements.isEmpty())
+            return;
+
+        // The branches on false become jumps , fold drops the error blocks.
+        Cfg.ReplaceAll(fun, replacements);
+        new ConstantFolding().RunOnFunction(fun);
+        Cfg.RemoveDeadInstructions(fun);
+    }
+
+    private boolean CantFail(Instruction check, BasicBlock block){
+        Value index = check.GetOperand(0);
+        Value bound = check.GetOperand(1);
+        switch (check.GetPredicate()){
+            case SLT: // index < 0 , size < 0
+                return IsConstant(bound, 0, 0) && IsNonNegative(index, block, nonNegative);
+            case SGE: // index >= length
+                return IsBelowLength(index, bound, block);
+            default:
+                return false;
+        }
+    }
+
+    private boolean IsBelowLength(Value index, Value length, BasicBlock block){
+        Value array = Cfg.ArrayOfLength(length);
+        if(array == null)
+            return false;
+        Value upper = index; // index <= upper.
+        if(IsOpcode(index, Opcode.SUB)) { // x - c <= x , it doesn't wrap around when x >= 0.
+            Instruction sub = (Instruction)index;
+            if(IsConstant(sub.GetOperand(1), 0, Integer.MAX_VALUE) && IsNonNegative(sub.GetOperand(0), block, nonNegative))
+                upper = sub.GetOperand(0);
+        }
+        for(Fact fact : FactsAt(block))
+            if(fact.less && (fact.lhs == index || fact.lhs == upper) && Cfg.ArrayOfLength(fact.rhs) == array)
+                return true;
+        return false;
+    }
+
+    private boolean IsNonNegative(Value value, BasicBlock block, Set<Value> known){
+        if(IsConstant(value, 0, Integer.MAX_VALUE) || known.contains(value))
+            return true;
+        for(Fact fact : FactsAt(block)) {
+            if(fact.lhs == value && !fact.less && (IsConstant(fact.rhs, 0, Integer.MAX_VALUE) || known.contains(fact.rhs)))
+                return true; // value >= rhs >= 0
+            if(fact.rhs == value && fact.less && (IsConstant(fact.lhs, -1, Integer.MAX_VALUE) || known.contains(fact.lhs)))
+                return true; // value > lhs >= -1
+        }
+        return false;
+    }
+
+    // The i32 values that are never negative. Starts from every candidate and drops the ones that may be
+    // negative until nothing changes , so a loop counter can depend on itself through its phi.
+    private Set<Value> NonNegativeValues(){
+        Set<Value> values = new LinkedHashSet<>();
+        for(BasicBlock block : domTree.GetReversePostOrder())
+            for(Instruction inst : block.GetInstructions()) {
+                Opcode opcode = inst.GetOpcode();
+                if(inst.GetType() == Type.I32 && (opcode == Opcode.PHI || opcode == Opcode.ADD || opcode == Opcode.SUB || Cfg.ArrayOfLength(inst) != null))
+                    values.add(inst);
+            }
+
+        boolean changed = true;
+        while(changed){
+            changed = false;
+            for(Iterator<Value> it = values.iterator(); it.hasNext();) {
+                if(!StaysNonNegative((Instruction)it.next(), values)) {
+                    it.remove();
+                    changed = true;
+                }
+            }
+        }
+        return values;
+    }
+
+    private boolean StaysNonNegative(Instruction inst, Set<Value> values){
+        BasicBlock block = inst.GetParent();
+        switch (inst.GetOpcode()){
+            case PHI:
+                for(int i = 0; i < inst.GetIncomingCount(); i++)
+                    if(!IsConstant(inst.GetIncomingValue(i), 0, Integer.MAX_VALUE) && !values.contains(inst.GetIncomingValue(i)))
+                        return false;
+                return true;
+            case ADD: { // x + 0 , or x + 1 when a fact says x < something so it doesn't wrap around.
+                Value x = inst.GetOperand(0);
+                Value c = inst.GetOperand(1);
+                if(x instanceof Constant) {
+                    x = inst.GetOperand(1);
+                    c = inst.GetOperand(0);
+                }
+                if(!IsConstant(c, 0, 1) || !IsNonNegative(x, block, values))
+                    return false;
+                return IsConstant(c, 0, 0) || HasUpperBound(x, block);
+            }
+            case SUB: { // x - c when x >= c.
+                Value x = inst.GetOperand(0);
+                Value c = inst.GetOperand(1);
+                if(!IsConstant(c, 0, Integer.MAX_VALUE))
+                    return false;
+                int min = ((Constant)c).GetValue();
+                for(Fact fact : FactsAt(block)) {
+                    if(fact.lhs == x && !fact.less && IsConstant(fact.rhs, min, Integer.MAX_VALUE))
+                        return true;
+                    if(fact.rhs == x && fact.less && IsConstant(fact.lhs, min - 1, Integer.MAX_VALUE))
+                        return true;
+                }
+                return min == 0 && IsNonNegative(x, block, values);
+            }
+            default:
+                return Cfg.ArrayOfLength(inst) != null;
+        }
+    }
+
+    private boolean HasUpperBound(Value value, BasicBlock block){
+        for(Fact fact : FactsAt(block))
+            if(fact.lhs == value && fact.less)
+                return true;
+        return false;
+    }
+
+    // Facts of the dominating branches. Blocks with a single predecessor (other than the error blocks
+    // of the checks , which exit) add the condition of the branch that leads to them.
+    private List<Fact> FactsAt(BasicBlock block){
+        List<Fact> known = facts.get(block);
+        if(known != null)
+            return known;
+        facts.put(block, Collections.emptyList()); // A cycle through the phis of && only loses facts.
+
+        List<Fact> result = new ArrayList<>();
+        BasicBlock idom = domTree.GetIDom(block);
+        if(idom != null)
+            result.addAll(FactsAt(idom));
+        BasicBlock pred = SinglePredecessor(block);
+        if(pred != null) {
+            Instruction term = pred.GetTerminator();
+            if(term != null && term.GetOpcode() == Opcode.BR && term.GetBlock(0) != term.GetBlock(1))
+                AddCondition(term.GetOperand(0), term.GetBlock(0) == block, result);
+        }
+        facts.put(block, result);
+        return result;
+    }
+
+    private BasicBlock SinglePredecessor(BasicBlock block){
+        BasicBlock single = null;
+        for(BasicBlock pred : domTree.GetPredecessors(block)) {
+            if(!domTree.IsReachable(pred) || Cfg.IsNoReturn(pred))
+                continue;
+            if(single != null && single != pred)
+                return null;
+            single = pred;
+        }
+        return single;
+    }
+
+    // Adds what is known when cond has the value truth.
+    private void AddCondition(Value cond, boolean truth, List<Fact> result){
+        if(!(cond instanceof Instruction))
+            return;
+        Instruction inst = (Instruction)cond;
+        switch (inst.GetOpcode()){
+            case ICMP:
+                if(inst.GetOperand(0).GetType() != Type.I32)
+                    return;
+                if(inst.GetPredicate() == Instruction.Predicate.SLT)
+                    result.add(new Fact(inst.GetOperand(0), truth, inst.GetOperand(1)));
+                else if(inst.GetPredicate() == Instruction.Predicate.SGE)
+                    result.add(new Fact(inst.GetOperand(0), !truth, inst.GetOperand(1)));
+                break;
+            case XOR: // !x
+                if(Constant.TRUE.equals(inst.GetOperand(1)))
+                    AddCondition(inst.GetOperand(0), !truth, result);
+                break;
+            case PHI: { // a && b is true only when coming from the block where b was true.
+                if(!truth)
+                    return;
+                int from = -1;
+                for(int i = 0; i < inst.GetIncomingCount(); i++) {
+                    if(Constant.FALSE.equals(inst.GetIncomingValue(i)))
+                        continue;
+                    if(from != -1)
+                        return;
+                    from = i;
+                }
+                if(from == -1 || !domTree.IsReachable(inst.GetIncomingBlock(from)))
+                    return;
+                result.addAll(FactsAt(inst.GetIncomingBlock(from)));
+                AddCondition(inst.GetIncomingValue(from), true, result);
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private static boolean IsOpcode(Value value, Opcode opcode){
+        return (value instanceof Instruction) && ((Instruction)value).GetOpcode() == opcode;
+    }
+
+    private static boolean IsConstant(Value value, int min, int max){
+        if(!(value instanceof Constant) || value.GetType() != Type.I32)
+            return false;
+        int x = ((Constant)value).GetValue();
+        return min <= x && x <= max;
+    }
+
+}
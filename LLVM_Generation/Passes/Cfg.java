@@ -0,0 +1,209 @@
+package LLVM_Generation.Passes;
+
+import LLVM_Generation.IR.*;
+
+import java.util.*;
+
+public final class Cfg {
+    /*-----------------------------------------------------
+    * Control flow graph helpers. Blocks only know their
+    * successors (the targets of their terminator) , the
+    * predecessors are computed when a pass needs them.
+    -----------------------------------------------------*/
+
+    private Cfg() {}
+
+    public static Map<BasicBlock,List<BasicBlock>> Predecessors(Function fun){
+        Map<BasicBlock,List<BasicBlock>> preds = new HashMap<>();
+        for(BasicBlock block : fun.GetBlocks())
+            preds.put(block, new ArrayList<>(2));
+        for(BasicBlock block : fun.GetBlocks())
+            for(BasicBlock succ : block.GetSuccessors())
+                preds.get(succ).add(block);
+        return preds;
+    }
+
+    // Blocks reachable from the entry , in reverse post order.
+    public static List<BasicBlock> ReversePostOrder(Function fun){
+        List<BasicBlock> postOrder = new ArrayList<>(fun.GetBlocks().size());
+        Set<BasicBlock> visited = new HashSet<>();
+        Deque<BasicBlock> stack = new ArrayDeque<>();
+        Deque<Integer> nextSucc = new ArrayDeque<>(); // Index of the next successor to visit per stacked block.
+        BasicBlock entry = fun.GetEntry();
+        visited.add(entry);
+        stack.push(entry);
+        nextSucc.push(0);
+        while(!stack.isEmpty()){
+            BasicBlock block = stack.peek();
+            int next = nextSucc.pop();
+            List<BasicBlock> succs = block.GetSuccessors();
+            if(next < succs.size()) {
+                nextSucc.push(next + 1);
+                BasicBlock succ = succs.get(next);
+                if(visited.add(succ)) {
+                    stack.push(succ);
+                    nextSucc.push(0);
+                }
+            }else{
+                stack.pop();
+                postOrder.add(block);
+            }
+        }
+        Collections.reverse(postOrder);
+        return postOrder;
+    }
+
+    // Drops the blocks that can't be reached from the entry. Returns true if any was removed.
+    public static boolean RemoveUnreachable(Function fun){
+        Set<BasicBlock> reachable = new HashSet<>(ReversePostOrder(fun));
+        if(reachable.size() == fun.GetBlocks().size())
+            return false;
+        for(BasicBlock block : fun.GetBlocks()) {
+            if(reachable.contains(block))
+                continue;
+            for(BasicBlock succ : block.GetSuccessors())
+                if(reachable.contains(succ))
+                    RemovePhiIncoming(succ, block);
+            block.Erase();
+        }
+        fun.RemoveDeadBlocks();
+        return true;
+    }
+
+    // Appends every block to its predecessor when it is that block's only successor and has no other predecessor
+    // (a jump chain left behind by folded branches). Returns true if any block was merged.
+    public static boolean MergeBlocks(Function fun){
+        Map<BasicBlock,List<BasicBlock>> preds = Predecessors(fun);
+        Map<Value,Value> replacements = new HashMap<>();
+        boolean merged = false;
+        for(BasicBlock block : fun.GetBlocks()) {
+            if(block.GetParent() == null) // Already merged into its predecessor.
+                continue;
+            while(true){
+                Instruction term = block.GetTerminator();
+                if(term == null || term.GetOpcode() != Opcode.JUMP)
+                    break;
+                BasicBlock succ = term.GetBlock(0);
+                if(succ == block || succ == fun.GetEntry() || preds.get(succ).size() != 1)
+                    break;
+
+                block.Remove(term);
+                for(Instruction inst : new ArrayList<>(succ.GetInstructions())) {
+                    succ.Remove(inst);
+                    if(inst.GetOpcode() == Opcode.PHI) // Single predecessor , the phi is its only incoming value.
+                        replacements.put(inst, inst.GetIncomingValue(0));
+                    else
+                        block.Append(inst);
+                }
+                for(BasicBlock next : block.GetSuccessors()) {
+                    preds.get(next).replaceAll(pred -> (pred == succ) ? block : pred);
+                    for(Instruction inst : next.GetInstructions()) {
+                        if(inst.GetOpcode() != Opcode.PHI)
+                            break;
+                        for(int i = 0; i < inst.GetIncomingCount(); i++)
+                            if(inst.GetIncomingBlock(i) == succ)
+                                inst.SetBlock(i, block);
+                    }
+                }
+                succ.Erase();
+                merged = true;
+            }
+        }
+        fun.RemoveDeadBlocks();
+        ReplaceAll(fun, replacements);
+        return merged;
+    }
+
+    public static void RemovePhiIncoming(BasicBlock block, BasicBlock pred){
+        for(Instruction inst : block.GetInstructions()) {
+            if(inst.GetOpcode() != Opcode.PHI)
+                break; // Phis are always first.
+            inst.RemoveIncoming(pred);
+        }
+    }
+
+    // The block calls a runtime function that exits (throw_oob , throw_nsz) , so it never reaches its successor.
+    public static boolean IsNoReturn(BasicBlock block){
+        for(Instruction inst : block.GetInstructions())
+            if(inst.GetOpcode() == Opcode.CALL && inst.GetCallee() instanceof Function && ((Function)inst.GetCallee()).IsNoReturn())
+                return true;
+        return false;
+    }
+
+    // The array whose length value loads , null if value is not the length of an array. Lengths never change
+    // once the array is allocated (elements are stored after them).
+    public static Value ArrayOfLength(Value value){
+        if(!(value instanceof Instruction) || ((Instruction)value).GetOpcode() != Opcode.LOAD || value.GetType() != Type.I32)
+            return null;
+        Value ptr = ((Instruction)value).GetOperand(0);
+        if(ptr instanceof Instruction) {
+            Instruction inst = (Instruction)ptr;
+            switch (inst.GetOpcode()){
+                case ALLOCA: // A local.
+                case GETELEMENTPTR: // An element.
+                    return null;
+                case BITCAST:
+                    Value source = inst.GetOperand(0);
+                    if(source.GetType() == Type.I1.PointerTo()) // boolean[]
+                        return source;
+                    if(source instanceof Instruction && ((Instruction)source).GetOpcode() == Opcode.CALL)
+                        return ptr; // new int[]
+                    return null; // A field.
+                default:
+                    break;
+            }
+        }
+        return (ptr.GetType() == Type.I32.PointerTo()) ? ptr : null;
+    }
+
+    // Drops the instructions without side effects whose results are unused. Returns true if any was removed.
+    public static boolean RemoveDeadInstructions(Function fun){
+        boolean removed = false;
+        boolean changed = true;
+        while(changed){
+            Set<Value> used = new HashSet<>();
+            for(BasicBlock block : fun.GetBlocks())
+                for(Instruction inst : block.GetInstructions())
+                    used.addAll(inst.GetOperands());
+            changed = false;
+            for(BasicBlock block : fun.GetBlocks())
+                changed |= block.RemoveIf(inst -> inst.GetOpcode().IsPure() && !used.contains(inst));
+            removed |= changed;
+        }
+        return removed;
+    }
+
+    // The value of a phi that merges a single value , ignoring itself (x = phi [y , a] , [x , b]). Null otherwise.
+    public static Value SingleIncoming(Instruction phi, Map<Value,Value> replacements){
+        Value single = null;
+        for(int i = 0; i < phi.GetIncomingCount(); i++) {
+            Value incoming = Resolve(phi.GetIncomingValue(i), replacements);
+            if(incoming == phi || incoming.equals(single))
+                continue;
+            if(single != null)
+                return null;
+            single = incoming;
+        }
+        return single;
+    }
+
+    // Every instruction of the function gets its operands rewritten by the map.
+    public static void ReplaceAll(Function fun, Map<Value,Value> replacements){
+        if(replacements.isEmpty())
+            return;
+        for(BasicBlock block : fun.GetBlocks())
+            for(Instruction inst : block.GetInstructions())
+                inst.ReplaceOperands(replacements);
+    }
+
+    // Follows a chain of replacements to the final value.
+    public static Value Resolve(Value value, Map<Value,Value> replacements){
+        Value replacement = replacements.get(value);
+        while(replacement != null){
+            value = replacement;
+            replacement = replacements.get(value);
+        }
+        return value;
+    }
+
+}
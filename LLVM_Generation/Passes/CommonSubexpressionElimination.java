@@ -0,0 +1,97 @@
+package LLVM_Generation.Passes;
+
+import LLVM_Generation.IR.*;
+
+import java.util.*;
+
+public class CommonSubexpressionElimination extends Pass {
+    /*-------------------------------------------------------------
+    * Local value numbering. Inside each block , an instruction
+    * that computes what an earlier one already did is replaced
+    * by it :
+    *   - addresses (getelementptr , bitcast) , arithmetic and
+    *     compares with the same operands ,
+    *   - loads from an address that was already loaded from or
+    *     stored to , until something may have changed it : a store
+    *     of the same type (fields of different types never share
+    *     memory) or a call of a method. Runtime calls (print ,
+    *     calloc) don't write memory that is in use.
+    * Array lengths never change , their loads are never forgotten.
+    * So x = x + x on a field computes its address once and loads
+    * it once.
+    -------------------------------------------------------------*/
+
+    public String GetName() { return "cse"; }
+
+    protected void RunOnFunction(Function fun){
+        Map<Value,Value> replacements = new HashMap<>();
+        for(BasicBlock block : fun.GetBlocks()) {
+            Map<List<Object>,Instruction> expressions = new HashMap<>();
+            Map<Value,Value> memory = new HashMap<>(); // The value at each address.
+            Set<Instruction> removed = new HashSet<>();
+            for(Instruction inst : block.GetInstructions()) {
+                inst.ReplaceOperands(replacements);
+                switch (inst.GetOpcode()){
+                    case GETELEMENTPTR: case BITCAST: case ADD: case SUB: case MUL: case XOR: case ICMP: {
+                        List<Object> key = Key(inst);
+                        Instruction same = expressions.get(key);
+                        if(same != null) {
+                            replacements.put(inst, same);
+                            removed.add(inst);
+                        }else{
+                            expressions.put(key, inst);
+                        }
+                        break;
+                    }
+                    case LOAD: {
+                        Value known = memory.get(inst.GetOperand(0));
+                        if(known != null) {
+                            replacements.put(inst, known);
+                            removed.add(inst);
+                        }else{
+                            memory.put(inst.GetOperand(0), inst);
+                        }
+                        break;
+                    }
+                    case STORE: {
+                        Type stored = MemoryType(inst.GetOperand(0).GetType());
+                        memory.entrySet().removeIf(entry -> MemoryType(entry.getValue().GetType()) == stored && !IsLength(entry));
+                        memory.put(inst.GetOperand(1), inst.GetOperand(0));
+                        break;
+                    }
+                    case CALL:
+                        if(!(inst.GetCallee() instanceof Function) || !((Function)inst.GetCallee()).IsExternal())
+                            memory.entrySet().removeIf(entry -> !IsLength(entry));
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if(!removed.isEmpty())
+                block.RemoveIf(removed::contains);
+        }
+        Cfg.ReplaceAll(fun, replacements);
+    }
+
+    private static List<Object> Key(Instruction inst){
+        List<Object> key = new ArrayList<>(inst.GetOperandCount() + 4);
+        key.add(inst.GetOpcode());
+        key.add(inst.GetType());
+        key.add(inst.GetPredicate());
+        key.add(inst.GetSourceType());
+        key.addAll(inst.GetOperands());
+        return key;
+    }
+
+    // Objects are all i8* in memory.
+    private static Type MemoryType(Type type){
+        return type.IsObject() ? Type.I8.PointerTo() : type;
+    }
+
+    // The address of an array's length and the value loaded from it.
+    private static boolean IsLength(Map.Entry<Value,Value> entry){
+        Value value = entry.getValue();
+        return Cfg.ArrayOfLength(value) != null && ((Instruction)value).GetOperand(0) == entry.getKey();
+    }
+
+}
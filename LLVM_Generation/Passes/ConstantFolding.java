@@ -0,0 +1,121 @@
+package LLVM_Generation.Passes;
+
+import LLVM_Generation.IR.*;
+
+import java.util.*;
+
+public class ConstantFolding extends Pass {
+    /*-------------------------------------------------------------
+    * Evaluates at compile time every instruction whose operands
+    * are constants and propagates the results :
+    *   - add / sub / mul wrap around like java ints ,
+    *   - icmp and xor (!) on constants become true / false ,
+    *   - a phi whose incoming values are all the same value ,
+    *   - a branch on a constant becomes a jump and the blocks
+    *     that can no longer be reached are dropped.
+    * The jump chains left behind are merged into single blocks.
+    * Repeats until nothing changes , so a folded condition can
+    * make a phi and then another branch constant. Runs best
+    * after mem2reg , when locals are no longer loaded from
+    * memory.
+    -------------------------------------------------------------*/
+
+    public String GetName() { return "fold"; }
+
+    protected void RunOnFunction(Function fun){
+        boolean changed = true;
+        while(changed){
+            Map<Value,Value> replacements = new HashMap<>();
+            changed = false;
+            for(BasicBlock block : Cfg.ReversePostOrder(fun)) { // Operands are folded before their uses , except phis of loops.
+                Set<Instruction> folded = new HashSet<>();
+                for(Instruction inst : block.GetInstructions()) {
+                    Value value = Fold(inst, replacements);
+                    if(value != null) {
+                        replacements.put(inst, value);
+                        folded.add(inst);
+                    }
+                }
+                if(!folded.isEmpty())
+                    block.RemoveIf(folded::contains);
+                changed |= !folded.isEmpty();
+                changed |= FoldBranch(block, replacements);
+            }
+            Cfg.ReplaceAll(fun, replacements);
+            changed |= Cfg.RemoveUnreachable(fun);
+        }
+        Cfg.MergeBlocks(fun);
+    }
+
+    // The value of the instruction if it is known , null otherwise.
+    static Value Fold(Instruction inst, Map<Value,Value> replacements){
+        Opcode opcode = inst.GetOpcode();
+        if(opcode.IsBinary() || opcode == Opcode.ICMP) {
+            Value a = Cfg.Resolve(inst.GetOperand(0), replacements);
+            Value b = Cfg.Resolve(inst.GetOperand(1), replacements);
+            if(!(a instanceof Constant) || !(b instanceof Constant) || a.GetType().IsPointer())
+                return null;
+            int x = ((Constant)a).GetValue();
+            int y = ((Constant)b).GetValue();
+            if(opcode == Opcode.ICMP)
+                return Constant.Bool(Compare(inst.GetPredicate(), x, y));
+            return Constant.Of(inst.GetType(), Evaluate(opcode, x, y));
+        }
+        if(opcode == Opcode.PHI)
+            return Cfg.SingleIncoming(inst, replacements);
+        return null;
+    }
+
+    static int Evaluate(Opcode opcode, int x, int y){
+        switch (opcode){
+            case ADD:
+                return x + y;
+            case SUB:
+                return x - y;
+            case MUL:
+                return x * y;
+            case XOR:
+                return x ^ y;
+            default:
+                throw new IllegalArgumentException(opcode.toString());
+        }
+    }
+
+    static boolean Compare(Instruction.Predicate predicate, int x, int y){
+        switch (predicate){
+            case SLT:
+                return x < y;
+            case SLE:
+                return x <= y;
+            case SGT:
+                return x > y;
+            case SGE:
+                return x >= y;
+            case EQ:
+                return x == y;
+            default:
+                return x != y;
+        }
+    }
+
+    // br on a constant -> jump. Returns true if the branch was replaced.
+    private static boolean FoldBranch(BasicBlock block, Map<Value,Value> replacements){
+        Instruction term = block.GetTerminator();
+        if(term == null || term.GetOpcode() != Opcode.BR)
+            return false;
+        Value cond = Cfg.Resolve(term.GetOperand(0), replacements);
+        BasicBlock ifTrue = term.GetBlock(0);
+        BasicBlock ifFalse = term.GetBlock(1);
+        if(!(cond instanceof Constant) || ifTrue == ifFalse)
+            return false;
+
+        BasicBlock target = ((Constant)cond).IsTrue() ? ifTrue : ifFalse;
+        Cfg.RemovePhiIncoming((target == ifTrue) ? ifFalse : ifTrue, block);
+        block.Remove(term);
+        Instruction jump = new Instruction(Opcode.JUMP, Type.VOID);
+        jump.AddBlock(target);
+        block.Append(jump);
+        return true;
+    }
+
+}
@@ -0,0 +1,89 @@
+package LLVM_Generation.Passes;
+
+import LLVM_Generation.IR.*;
+import LLVM_Generation.IR.Module;
+import TypeChecking.*;
+
+import java.util.*;
+
+public class Devirtualization extends Pass {
+    /*-------------------------------------------------------------
+    * Class hierarchy analysis. A call through the vtable becomes
+    * a direct call of the method when only one method can run :
+    *   - no subclass of the receiver's class overrides it (this
+    *     includes calls on this in classes nothing extends) ,
+    *   - or the receiver was just allocated (new C()) , so its
+    *     class is known exactly.
+    * The program is a single file , every class is known. The
+    * receiver's class is taken from its value , which after
+    * mem2reg can be more precise than the variable the call was
+    * generated from (A a = new B()). The vtable loads of the
+    * replaced calls are dropped.
+    -------------------------------------------------------------*/
+
+    private Module module;
+    private final Map<FunctionT,Function> functions = new HashMap<>();
+    private final Map<String,List<ClassT>> definedIn = new HashMap<>(); // The classes defining each method name.
+
+    public String GetName() { return "devirt"; }
+
+    public void Run(Module module){
+        this.module = module;
+        for(Function fun : module.GetFunctions())
+            if(fun.GetSource() != null)
+                functions.put(fun.GetSource(), fun);
+        for(ClassT classT : module.GetClasses())
+            for(String name : classT.GetFunctionsHash().keySet())
+                definedIn.computeIfAbsent(name, key -> new ArrayList<>()).add(classT);
+        super.Run(module);
+    }
+
+    protected void RunOnFunction(Function fun){
+        boolean changed = false;
+        for(BasicBlock block : fun.GetBlocks())
+            for(Instruction inst : block.GetInstructions()) {
+                if(inst.GetOpcode() != Opcode.CALL || !inst.IsVirtualCall())
+                    continue;
+                Function target = Target(inst);
+                if(target == null)
+                    continue;
+                inst.SetCallee(target);
+                inst.SetMethod(null);
+                changed = true;
+            }
+        if(changed)
+            Cfg.RemoveDeadInstructions(fun); // The vtable loads.
+    }
+
+    // The only method the call can run , null if there may be more.
+    private Function Target(Instruction call){
+        Value receiver = call.GetArg(0);
+        if(!receiver.GetType().IsObject())
+            return null;
+        ClassT classT = module.GetClass(receiver.GetType().GetClassName());
+        if(classT == null)
+            return null;
+        String name = call.GetMethod().GetName();
+        if(!IsAllocation(receiver) && IsOverridden(classT, name))
+            return null;
+        FunctionT method = classT.FindFunction(name);
+        return (method == null) ? null : functions.get(method);
+    }
+
+    private boolean IsOverridden(ClassT classT, String name){
+        for(ClassT definer : definedIn.getOrDefault(name, Collections.emptyList()))
+            for(ClassT superClass = definer.GetSuperClass(); superClass != null; superClass = superClass.GetSuperClass())
+                if(superClass == classT)
+                    return true;
+        return false;
+    }
+
+    // new C() is a call of the allocator typed with the class.
+    private static boolean IsAllocation(Value value){
+        if(!(value instanceof Instruction) || ((Instruction)value).GetOpcode() != Opcode.CALL)
+            return false;
+        Value callee = ((Instruction)value).GetCallee();
+        return callee instanceof Function && ((Function)callee).IsAllocator();
+    }
+
+}
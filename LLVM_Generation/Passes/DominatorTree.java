@@ -0,0 +1,111 @@
+package LLVM_Generation.Passes;
+
+import LLVM_Generation.IR.*;
+
+import java.util.*;
+
+public final class DominatorTree {
+    /*-------------------------------------------------------------
+    * Immediate dominators of the reachable blocks of a function
+    * (Cooper , Harvey , Kennedy : "A Simple , Fast Dominance
+    * Algorithm") and their dominance frontiers.
+    * The tree is a snapshot , it has to be rebuilt once a pass
+    * changes the control flow.
+    -------------------------------------------------------------*/
+
+    private final List<BasicBlock> order; // Reverse post order.
+    private final Map<BasicBlock,Integer> index;
+    private final Map<BasicBlock,List<BasicBlock>> preds;
+    private final int[] idom;
+    private final List<List<BasicBlock>> children;
+
+    public DominatorTree(Function fun){
+        this.order = Cfg.ReversePostOrder(fun);
+        this.preds = Cfg.Predecessors(fun);
+        this.index = new HashMap<>();
+        for(int i = 0; i < order.size(); i++)
+            index.put(order.get(i), i);
+
+        this.idom = new int[order.size()];
+        Arrays.fill(idom, -1);
+        idom[0] = 0;
+        boolean changed = true;
+        while(changed){
+            changed = false;
+            for(int i = 1; i < order.size(); i++) {
+                int newIdom = -1;
+                for(BasicBlock pred : preds.get(order.get(i))) {
+                    Integer p = index.get(pred);
+                    if(p == null || idom[p] == -1) // Unreachable or not processed yet.
+                        continue;
+                    newIdom = (newIdom == -1) ? p : Intersect(p, newIdom);
+                }
+                if(idom[i] != newIdom) {
+                    idom[i] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+
+        this.children = new ArrayList<>(order.size());
+        for(int i = 0; i < order.size(); i++)
+            children.add(new ArrayList<>(2));
+        for(int i = 1; i < order.size(); i++)
+            children.get(idom[i]).add(order.get(i));
+    }
+
+    private int Intersect(int a, int b){
+        while(a != b){
+            while(a > b)
+                a = idom[a];
+            while(b > a)
+                b = idom[b];
+        }
+        return a;
+    }
+
+    public List<BasicBlock> GetReversePostOrder() { return order; }
+    public boolean IsReachable(BasicBlock block) { return index.containsKey(block); }
+    public List<BasicBlock> GetPredecessors(BasicBlock block) { return preds.get(block); }
+    public List<BasicBlock> GetChildren(BasicBlock block) { return children.get(index.get(block)); }
+
+    public BasicBlock GetIDom(BasicBlock block){
+        int i = index.get(block);
+        return (i == 0) ? null : order.get(idom[i]);
+    }
+
+    // a dominates b (every block dominates itself).
+    public boolean Dominates(BasicBlock a, BasicBlock b){
+        Integer ai = index.get(a);
+        Integer bi = index.get(b);
+        if(ai == null || bi == null)
+            return false;
+        int curr = bi;
+        while(curr > ai) // Dominators come first in reverse post order.
+            curr = idom[curr];
+        return curr == ai;
+    }
+
+    public Map<BasicBlock,Set<BasicBlock>> Frontiers(){
+        Map<BasicBlock,Set<BasicBlock>> frontiers = new HashMap<>();
+        for(BasicBlock block : order)
+            frontiers.put(block, new LinkedHashSet<>());
+        for(int i = 0; i < order.size(); i++) {
+            BasicBlock block = order.get(i);
+            List<BasicBlock> blockPreds = preds.get(block);
+            if(blockPreds.size() < 2)
+                continue;
+            for(BasicBlock pred : blockPreds) {
+                Integer runner = index.get(pred);
+                if(runner == null)
+                    continue;
+                while(runner != idom[i]){
+                    frontiers.get(order.get(runner)).add(block);
+                    runner = idom[runner];
+                }
+            }
+        }
+        return frontiers;
+    }
+
+}
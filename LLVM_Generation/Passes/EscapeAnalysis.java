@@ -0,0 +1,130 @@
+package LLVM_Generation.Passes;
+
+import LLVM_Generation.IR.*;
+import LLVM_Generation.IR.Module;
+
+import java.util.*;
+
+public class EscapeAnalysis extends Pass {
+    /*-------------------------------------------------------------
+    * Allocates on the stack the objects and fixed size arrays
+    * that never leave the method that creates them. A calloc is
+    * replaced when its size is a constant (at most MAX_BYTES)
+    * and its pointer , or any address computed from it , is only
+    * loaded from and stored to. Storing the pointer itself ,
+    * returning it , passing it to a call (a method that was not
+    * inlined) or merging it in a phi lets it escape.
+    * The memory is an alloca in the entry block , zeroed with
+    * llvm.memset where the calloc was , so an allocation in a
+    * loop reuses the same memory : without phis no object lives
+    * longer than one iteration. Runs after inline , which makes
+    * the calls on small objects disappear , and after fold ,
+    * which makes array sizes constant.
+    -------------------------------------------------------------*/
+
+    public static final int MAX_BYTES = 1024;
+
+    private static final String MEMSET = "llvm.memset.p0i8.i32";
+
+    private Function memset;
+
+    public String GetName() { return "escape"; }
+
+    public void Run(Module module){
+        memset = module.GetFunction(MEMSET);
+        boolean declared = memset != null;
+        if(!declared)
+            memset = new Function(MEMSET, Type.VOID, List.of(Type.I8.PointerTo(), Type.I8, Type.I32, Type.I1), null, true, null, null);
+        boolean used = false;
+        for(Function fun : module.GetFunctions())
+            if(!fun.IsExternal())
+                used |= Promote(fun);
+        if(used && !declared) { // Declared only when needed , programs without such objects print the same.
+            module.AddFunction(memset);
+            module.AddRuntime("declare void @" + MEMSET + "(i8*, i8, i32, i1)\n");
+        }
+    }
+
+    // Returns true if any allocation was moved to the stack.
+    private boolean Promote(Function fun){
+        Map<Value,List<Instruction>> users = Users(fun);
+        List<Instruction> allocations = new ArrayList<>();
+        for(BasicBlock block : fun.GetBlocks())
+            for(Instruction inst : block.GetInstructions())
+                if(Size(inst) > 0 && !Escapes(inst, users))
+                    allocations.add(inst);
+
+        Map<Value,Value> replacements = new HashMap<>();
+        for(Instruction calloc : allocations) {
+            int size = Size(calloc);
+            Type slotType = Type.Array((size + 7) / 8, Type.I64); // 8 byte aligned , like calloc.
+            Instruction slot = new Instruction(Opcode.ALLOCA, slotType.PointerTo());
+            slot.SetAuxType(slotType);
+            fun.GetEntry().Insert(0, slot);
+
+            BasicBlock block = calloc.GetParent();
+            int index = block.GetInstructions().indexOf(calloc);
+            Instruction memory = new Instruction(Opcode.BITCAST, calloc.GetType(), slot);
+            Instruction zero = new Instruction(Opcode.CALL, Type.VOID, memset, memory, Constant.Of(Type.I8, 0),
+                    Constant.Int(size), Constant.FALSE);
+            block.Remove(calloc);
+            block.Insert(index, memory);
+            block.Insert(index + 1, zero);
+            replacements.put(calloc, memory);
+        }
+        Cfg.ReplaceAll(fun, replacements);
+        return !allocations.isEmpty();
+    }
+
+    // The bytes allocated by a calloc (or arena_alloc) with constant arguments , 0 otherwise.
+    // gc_alloc also takes a pointer map and is left alone : the collector doesn't scan the stack slots.
+    private static int Size(Instruction inst){
+        if(inst.GetOpcode() != Opcode.CALL || !(inst.GetCallee() instanceof Function)
+                || !((Function)inst.GetCallee()).IsAllocator() || inst.GetArgCount() != 2)
+            return 0;
+        if(!(inst.GetArg(0) instanceof Constant) || !(inst.GetArg(1) instanceof Constant))
+            return 0;
+        long size = (long)((Constant)inst.GetArg(0)).GetValue() * ((Constant)inst.GetArg(1)).GetValue();
+        return (size > 0 && size <= MAX_BYTES) ? (int)size : 0;
+    }
+
+    // Follows the pointer through bitcasts and getelementptrs.
+    private static boolean Escapes(Instruction allocation, Map<Value,List<Instruction>> users){
+        Deque<Value> work = new ArrayDeque<>(List.of(allocation));
+        Set<Value> seen = new HashSet<>(work);
+        while(!work.isEmpty()){
+            Value pointer = work.poll();
+            for(Instruction user : users.getOrDefault(pointer, Collections.emptyList())) {
+                switch (user.GetOpcode()){
+                    case LOAD:
+                        break;
+                    case STORE:
+                        if(user.GetOperand(0) == pointer) // The pointer itself is stored.
+                            return true;
+                        break;
+                    case BITCAST:
+                    case GETELEMENTPTR:
+                        if(user.GetOperand(0) != pointer) // Used as an index.
+                            return true;
+                        if(seen.add(user))
+                            work.add(user);
+                        break;
+                    default: // call , ret , phi , ...
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Map<Value,List<Instruction>> Users(Function fun){
+        Map<Value,List<Instruction>> users = new HashMap<>();
+        for(BasicBlock block : fun.GetBlocks())
+            for(Instruction inst : block.GetInstructions())
+                for(Value operand : inst.GetOperands())
+                    if(operand instanceof Instruction)
+                        users.computeIfAbsent(operand, key -> new ArrayList<>()).add(inst);
+        return users;
+    }
+
+}
@@ -0,0 +1,224 @@
+package LLVM_Generation.Passes;
+
+import LLVM_Generation.IR.*;
+import LLVM_Generation.IR.Module;
+
+import java.util.*;
+
+public class Inliner extends Pass {
+    /*-------------------------------------------------------------
+    * Replaces direct calls of small methods with a copy of their
+    * body (getters , setters and the like) :
+    *   - only direct calls are inlined , so devirt has to run
+    *     first for method calls ,
+    *   - the callee has at most budget instructions
+    *     (--inline-budget N) and is not recursive , directly or
+    *     through other methods ,
+    *   - methods are visited callees first , so a small method
+    *     that calls other small methods is inlined already
+    *     flattened.
+    * The block of the call is split in two , the copied blocks go
+    * in between and every ret jumps to the second half with its
+    * value (a phi when there are many). The values of the copy
+    * are new instructions , the printer numbers them again.
+    * Allocas of the callee are moved to the caller's entry so a
+    * call in a loop doesn't grow the stack.
+    -------------------------------------------------------------*/
+
+    public static final int DEFAULT_BUDGET = 30;
+
+    private final int budget;
+    private final Map<Function,List<Function>> callees = new HashMap<>();
+    private final Set<Function> recursive = new HashSet<>();
+
+    public Inliner(int budget){
+        this.budget = budget;
+    }
+
+    public String GetName() { return "inline"; }
+
+    public void Run(Module module){
+        for(Function fun : module.GetFunctions())
+            if(!fun.IsExternal())
+                callees.put(fun, DirectCallees(fun));
+        for(Function fun : BottomUp(module))
+            RunOnFunction(fun);
+    }
+
+    protected void RunOnFunction(Function fun){
+        List<Instruction> calls = new ArrayList<>();
+        for(BasicBlock block : fun.GetBlocks())
+            for(Instruction inst : block.GetInstructions())
+                if(IsInlinable(fun, inst))
+                    calls.add(inst);
+        for(Instruction call : calls)
+            Inline(fun, call);
+    }
+
+    private boolean IsInlinable(Function caller, Instruction inst){
+        if(inst.GetOpcode() != Opcode.CALL || inst.IsVirtualCall() || !(inst.GetCallee() instanceof Function))
+            return false;
+        Function callee = (Function)inst.GetCallee();
+        return !callee.IsExternal() && callee != caller && !recursive.contains(callee) && callee.GetInstructionCount() <= budget;
+    }
+
+    private static List<Function> DirectCallees(Function fun){
+        List<Function> result = new ArrayList<>();
+        for(BasicBlock block : fun.GetBlocks())
+            for(Instruction inst : block.GetInstructions())
+                if(inst.GetOpcode() == Opcode.CALL && inst.GetCallee() instanceof Function && !((Function)inst.GetCallee()).IsExternal())
+                    result.add((Function)inst.GetCallee());
+        return result;
+    }
+
+    // Functions in an order where callees come before their callers (Tarjan's strongly connected components ,
+    // which come out callees first). Functions of a component with a cycle are marked recursive.
+    private List<Function> BottomUp(Module module){
+        List<Function> order = new ArrayList<>();
+        Map<Function,Integer> index = new HashMap<>();
+        Map<Function,Integer> lowLink = new HashMap<>();
+        Deque<Function> component = new ArrayDeque<>();
+        Set<Function> onStack = new HashSet<>();
+
+        for(Function root : callees.keySet().stream().sorted(Comparator.comparing(Function::GetName)).toList()) {
+            if(index.containsKey(root))
+                continue;
+            // Iterative dfs , a frame is a function and the position of the next callee to visit.
+            Deque<Function> stack = new ArrayDeque<>();
+            Deque<Integer> next = new ArrayDeque<>();
+            stack.push(root);
+            next.push(0);
+            index.put(root, index.size());
+            lowLink.put(root, index.get(root));
+            component.push(root);
+            onStack.add(root);
+            while(!stack.isEmpty()){
+                Function fun = stack.peek();
+                int i = next.pop();
+                List<Function> succs = callees.get(fun);
+                if(i < succs.size()) {
+                    next.push(i + 1);
+                    Function callee = succs.get(i);
+                    if(!index.containsKey(callee)) {
+                        index.put(callee, index.size());
+                        lowLink.put(callee, index.get(callee));
+                        component.push(callee);
+                        onStack.add(callee);
+                        stack.push(callee);
+                        next.push(0);
+                    }else if(onStack.contains(callee)) {
+                        lowLink.put(fun, Math.min(lowLink.get(fun), index.get(callee)));
+                    }
+                    continue;
+                }
+
+                stack.pop();
+                if(!stack.isEmpty())
+                    lowLink.put(stack.peek(), Math.min(lowLink.get(stack.peek()), lowLink.get(fun)));
+                if(!lowLink.get(fun).equals(index.get(fun)))
+                    continue;
+                List<Function> members = new ArrayList<>();
+                Function member;
+                do {
+                    member = component.pop();
+                    onStack.remove(member);
+                    members.add(member);
+                } while(member != fun);
+                if(members.size() > 1 || callees.get(fun).contains(fun))
+                    recursive.addAll(members);
+                order.addAll(members);
+            }
+        }
+        return order;
+    }
+
+    private static void Inline(Function caller, Instruction call){
+        Function callee = (Function)call.GetCallee();
+        BasicBlock block = call.GetParent();
+        BasicBlock after = SplitAfter(caller, block, call);
+        block.Remove(call);
+
+        Map<Value,Value> values = new HashMap<>();
+        for(int i = 0; i < call.GetArgCount(); i++)
+            values.put(callee.GetArgument(i), call.GetArg(i));
+        Map<BasicBlock,BasicBlock> blocks = new HashMap<>();
+        for(BasicBlock original : callee.GetBlocks())
+            blocks.put(original, new BasicBlock());
+
+        // Operands defined later in the callee (loops , phis) are mapped once every instruction has a copy.
+        List<Instruction> copies = new ArrayList<>();
+        List<Instruction> returns = new ArrayList<>();
+        List<BasicBlock> returnBlocks = new ArrayList<>();
+        for(BasicBlock original : callee.GetBlocks())
+            for(Instruction inst : original.GetInstructions()) {
+                Instruction copy = inst.Clone(values, blocks);
+                values.put(inst, copy);
+                copies.add(copy);
+                if(copy.GetOpcode() == Opcode.RET) {
+                    returns.add(copy);
+                    returnBlocks.add(blocks.get(original));
+                }else if(copy.GetOpcode() == Opcode.ALLOCA) {
+                    caller.GetEntry().Insert(0, copy);
+                }else{
+                    blocks.get(original).Append(copy);
+                }
+            }
+        for(Instruction copy : copies)
+            copy.ReplaceOperands(values);
+
+        // Every ret jumps to the rest of the caller's block with its value.
+        Instruction phi = null;
+        if(call.HasResult() && returns.size() > 1) {
+            phi = new Instruction(Opcode.PHI, call.GetType());
+            after.Insert(0, phi);
+        }
+        Value result = null;
+        for(int i = 0; i < returns.size(); i++) {
+            Instruction ret = returns.get(i);
+            BasicBlock from = returnBlocks.get(i);
+            if(call.HasResult()) {
+                if(phi != null)
+                    phi.AddIncoming(ret.GetOperand(0), from);
+                else
+                    result = ret.GetOperand(0);
+            }
+            Instruction jump = new Instruction(Opcode.JUMP, Type.VOID);
+            jump.AddBlock(after);
+            from.Append(jump);
+        }
+        if(phi != null)
+            result = phi;
+
+        Instruction enter = new Instruction(Opcode.JUMP, Type.VOID);
+        enter.AddBlock(blocks.get(callee.GetEntry()));
+        block.Append(enter);
+
+        int position = caller.GetBlocks().indexOf(block) + 1;
+        for(BasicBlock original : callee.GetBlocks())
+            caller.InsertBlock(position++, blocks.get(original));
+        if(result != null)
+            Cfg.ReplaceAll(caller, Map.of(call, result));
+    }
+
+    // Moves the instructions after inst to a new block placed after block. Returns the new block.
+    private static BasicBlock SplitAfter(Function fun, BasicBlock block, Instruction inst){
+        BasicBlock after = new BasicBlock();
+        List<Instruction> insts = block.GetInstructions();
+        List<Instruction> tail = new ArrayList<>(insts.subList(insts.indexOf(inst) + 1, insts.size()));
+        Set<Instruction> moved = new HashSet<>(tail);
+        block.RemoveIf(moved::contains);
+        for(Instruction moving : tail)
+            after.Append(moving);
+        for(BasicBlock succ : after.GetSuccessors())
+            for(Instruction phi : succ.GetInstructions()) {
+                if(phi.GetOpcode() != Opcode.PHI)
+                    break;
+                for(int i = 0; i < phi.GetIncomingCount(); i++)
+                    if(phi.GetIncomingBlock(i) == block)
+                        phi.SetBlock(i, after);
+            }
+        fun.InsertBlock(fun.GetBlocks().indexOf(block) + 1, after);
+        return after;
+    }
+
+}
@@ -0,0 +1,162 @@
+package LLVM_Generation.Passes;
+
+import LLVM_Generation.IR.*;
+
+import java.util.*;
+
+public class LoopInvariantCodeMotion extends Pass {
+    /*-------------------------------------------------------------
+    * Moves the computations that give the same value on every
+    * iteration of a loop to the block before the loop (the
+    * preheader) , inner loops first :
+    *   - field addresses (getelementptr + bitcast off this) and
+    *     arithmetic on values defined outside of the loop ,
+    *   - array lengths , they never change. A length is a load
+    *     though , so it is only moved when it can't be the first
+    *     access to a null array : it is in the loop header before
+    *     any call (it runs whenever the loop is entered) or the
+    *     array was allocated or its length read before the loop.
+    * Loads of fields and elements stay , stores and calls in the
+    * loop may change them. Runs best after mem2reg.
+    -------------------------------------------------------------*/
+
+    public String GetName() { return "licm"; }
+
+    protected void RunOnFunction(Function fun){
+        DominatorTree domTree = new DominatorTree(fun);
+        boolean added = false;
+        for(Set<BasicBlock> loop : FindLoops(domTree))
+            if(Preheader(loop, domTree) == null)
+                added |= AddPreheader(fun, loop, domTree);
+        if(added)
+            domTree = new DominatorTree(fun);
+
+        for(Set<BasicBlock> loop : FindLoops(domTree)) {
+            BasicBlock preheader = Preheader(loop, domTree);
+            if(preheader == null)
+                continue;
+            BasicBlock header = loop.iterator().next();
+            for(BasicBlock block : domTree.GetReversePostOrder()) { // Operands are moved before their uses.
+                if(!loop.contains(block))
+                    continue;
+                boolean calls = false; // A call before the instruction , in the header.
+                for(Instruction inst : new ArrayList<>(block.GetInstructions())) {
+                    if(inst.GetOpcode() == Opcode.CALL)
+                        calls = true;
+                    if(IsInvariant(inst, loop) && CanMove(inst, block == header && !calls, preheader, domTree)) {
+                        block.Remove(inst);
+                        preheader.InsertBeforeTerminator(inst);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean IsInvariant(Instruction inst, Set<BasicBlock> loop){
+        for(Value operand : inst.GetOperands())
+            if(operand instanceof Instruction && loop.contains(((Instruction)operand).GetParent()))
+                return false;
+        return true;
+    }
+
+    private static boolean CanMove(Instruction inst, boolean runsOnEntry, BasicBlock preheader, DominatorTree domTree){
+        switch (inst.GetOpcode()){
+            case GETELEMENTPTR:
+            case BITCAST:
+            case ADD:
+            case SUB:
+            case MUL:
+            case XOR:
+            case ICMP:
+                return true;
+            case LOAD:
+                Value array = Cfg.ArrayOfLength(inst);
+                return array != null && (runsOnEntry || IsNonNull(array, preheader, domTree));
+            default:
+                return false;
+        }
+    }
+
+    // The array is allocated here , or its length is read in a block that dominates the preheader.
+    private static boolean IsNonNull(Value array, BasicBlock preheader, DominatorTree domTree){
+        if(array instanceof Instruction && ((Instruction)array).GetOpcode() == Opcode.BITCAST) {
+            Value source = ((Instruction)array).GetOperand(0);
+            if(source instanceof Instruction && ((Instruction)source).GetOpcode() != Opcode.LOAD)
+                return true; // new int[] or new boolean[] , casts of calloc.
+        }
+        for(BasicBlock block = preheader; block != null; block = domTree.GetIDom(block))
+            for(Instruction inst : block.GetInstructions())
+                if(inst.GetOpcode() == Opcode.LOAD && Cfg.ArrayOfLength(inst) == array)
+                    return true;
+        return false;
+    }
+
+    // Natural loops , each as its blocks with the header first , inner loops first.
+    // Back edges that go to the same header make a single loop.
+    private static List<Set<BasicBlock>> FindLoops(DominatorTree domTree){
+        Map<BasicBlock,Set<BasicBlock>> loops = new LinkedHashMap<>();
+        for(BasicBlock block : domTree.GetReversePostOrder())
+            for(BasicBlock succ : block.GetSuccessors()) {
+                if(!domTree.Dominates(succ, block))
+                    continue;
+                Set<BasicBlock> loop = loops.computeIfAbsent(succ, header -> new LinkedHashSet<>(List.of(header)));
+                Deque<BasicBlock> work = new ArrayDeque<>();
+                if(loop.add(block))
+                    work.add(block);
+                while(!work.isEmpty())
+                    for(BasicBlock pred : domTree.GetPredecessors(work.poll()))
+                        if(domTree.IsReachable(pred) && loop.add(pred))
+                            work.add(pred);
+            }
+        List<Set<BasicBlock>> result = new ArrayList<>(loops.values());
+        result.sort(Comparator.comparingInt(Set::size));
+        return result;
+    }
+
+    // The only block entering the loop , if it has no other successor.
+    private static BasicBlock Preheader(Set<BasicBlock> loop, DominatorTree domTree){
+        BasicBlock entering = Entering(loop, domTree);
+        if(entering == null || entering.GetSuccessors().size() != 1)
+            return null;
+        return entering;
+    }
+
+    // The only block outside of the loop that jumps to its header , null if there are more.
+    private static BasicBlock Entering(Set<BasicBlock> loop, DominatorTree domTree){
+        BasicBlock entering = null;
+        for(BasicBlock pred : domTree.GetPredecessors(loop.iterator().next())) {
+            if(loop.contains(pred) || !domTree.IsReachable(pred))
+                continue;
+            if(entering != null)
+                return null;
+            entering = pred;
+        }
+        return entering;
+    }
+
+    // Puts a new block on the edge that enters the loop (br cond , header , other). Returns true if one was added.
+    private static boolean AddPreheader(Function fun, Set<BasicBlock> loop, DominatorTree domTree){
+        BasicBlock entering = Entering(loop, domTree);
+        BasicBlock header = loop.iterator().next();
+        if(entering == null)
+            return false;
+        BasicBlock preheader = new BasicBlock();
+        Instruction jump = new Instruction(Opcode.JUMP, Type.VOID);
+        jump.AddBlock(header);
+        preheader.Append(jump);
+        Instruction term = entering.GetTerminator();
+        for(int i = 0; i < term.GetBlocks().size(); i++)
+            if(term.GetBlock(i) == header)
+                term.SetBlock(i, preheader);
+        for(Instruction phi : header.GetInstructions()) {
+            if(phi.GetOpcode() != Opcode.PHI)
+                break;
+            for(int i = 0; i < phi.GetIncomingCount(); i++)
+                if(phi.GetIncomingBlock(i) == entering)
+                    phi.SetBlock(i, preheader);
+        }
+        fun.InsertBlock(fun.GetBlocks().indexOf(header), preheader);
+        return true;
+    }
+
+}
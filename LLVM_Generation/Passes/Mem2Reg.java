@@ -0,0 +1,200 @@
+package LLVM_Generation.Passes;
+
+import LLVM_Generation.IR.*;
+
+import java.util.*;
+
+public class Mem2Reg extends Pass {
+    /*-------------------------------------------------------------
+    * SSA construction. The generator gives every local and
+    * argument an alloca and accesses it with loads and stores ,
+    * this pass keeps those variables in registers instead :
+    *   - phis are placed on the iterated dominance frontier of
+    *     the blocks that store to a variable (Cytron et al.) ,
+    *   - a walk of the dominator tree replaces every load with
+    *     the value that reaches it and drops the stores ,
+    *   - phis that turn out trivial or unused are removed.
+    * Only allocas that are just loaded from and stored to are
+    * promoted , which is every local the generator creates.
+    * A variable read before any assignment reads zero / null.
+    -------------------------------------------------------------*/
+
+    public String GetName() { return "mem2reg"; }
+
+    protected void RunOnFunction(Function fun){
+        Cfg.RemoveUnreachable(fun);
+        List<Instruction> allocas = PromotableAllocas(fun);
+        if(allocas.isEmpty())
+            return;
+
+        DominatorTree domTree = new DominatorTree(fun);
+        Map<Instruction,Instruction> phiVars = PlacePhis(fun, allocas, domTree);
+        Map<Value,Value> replacements = Rename(fun, allocas, phiVars, domTree);
+
+        for(Instruction alloca : allocas)
+            alloca.GetParent().Remove(alloca);
+        Cfg.ReplaceAll(fun, replacements);
+        RemoveUselessPhis(fun, phiVars.keySet());
+    }
+
+    private static List<Instruction> PromotableAllocas(Function fun){
+        Set<Instruction> candidates = new LinkedHashSet<>();
+        for(Instruction inst : fun.GetEntry().GetInstructions())
+            if(inst.GetOpcode() == Opcode.ALLOCA)
+                candidates.add(inst);
+        if(candidates.isEmpty())
+            return Collections.emptyList();
+
+        for(BasicBlock block : fun.GetBlocks())
+            for(Instruction inst : block.GetInstructions())
+                for(int i = 0; i < inst.GetOperandCount(); i++) {
+                    Value operand = inst.GetOperand(i);
+                    if(!(operand instanceof Instruction) || !candidates.contains(operand))
+                        continue;
+                    boolean access = (inst.GetOpcode() == Opcode.LOAD) || (inst.GetOpcode() == Opcode.STORE && i == 1);
+                    if(!access) // The address escapes.
+                        candidates.remove(operand);
+                }
+        return new ArrayList<>(candidates);
+    }
+
+    // Returns each placed phi with the alloca it stands for.
+    private static Map<Instruction,Instruction> PlacePhis(Function fun, List<Instruction> allocas, DominatorTree domTree){
+        Map<Instruction,Set<BasicBlock>> defBlocks = new HashMap<>();
+        for(Instruction alloca : allocas)
+            defBlocks.put(alloca, new LinkedHashSet<>());
+        for(BasicBlock block : domTree.GetReversePostOrder())
+            for(Instruction inst : block.GetInstructions())
+                if(inst.GetOpcode() == Opcode.STORE && defBlocks.containsKey(inst.GetOperand(1)))
+                    defBlocks.get(inst.GetOperand(1)).add(block);
+
+        Map<BasicBlock,Set<BasicBlock>> frontiers = domTree.Frontiers();
+        Map<Instruction,Instruction> phiVars = new LinkedHashMap<>();
+        for(Instruction alloca : allocas) {
+            Set<BasicBlock> hasPhi = new HashSet<>();
+            Deque<BasicBlock> work = new ArrayDeque<>(defBlocks.get(alloca));
+            Set<BasicBlock> queued = new HashSet<>(work);
+            while(!work.isEmpty()){
+                BasicBlock block = work.poll();
+                for(BasicBlock frontier : frontiers.get(block)) {
+                    if(!hasPhi.add(frontier))
+                        continue;
+                    Instruction phi = new Instruction(Opcode.PHI, alloca.GetAllocatedType());
+                    phi.SetName(alloca.GetName());
+                    frontier.Insert(0, phi);
+                    phiVars.put(phi, alloca);
+                    if(queued.add(frontier)) // A phi is a new definition too.
+                        work.add(frontier);
+                }
+            }
+        }
+        return phiVars;
+    }
+
+    // A block to rename , or once its dominator subtree is done , the variables whose values it pushed.
+    private static final class Frame {
+        final BasicBlock block;
+        final List<Instruction> pushed;
+
+        Frame(BasicBlock block, List<Instruction> pushed){
+            this.block = block;
+            this.pushed = pushed;
+        }
+    }
+
+    // Walks the dominator tree keeping the current value of every variable. Returns the replacement of every load.
+    private static Map<Value,Value> Rename(Function fun, List<Instruction> allocas, Map<Instruction,Instruction> phiVars,
+                                           DominatorTree domTree){
+        Map<Value,Value> replacements = new HashMap<>();
+        Map<Value,Deque<Value>> current = new HashMap<>();
+        for(Instruction alloca : allocas) {
+            Deque<Value> values = new ArrayDeque<>();
+            values.push(Constant.Zero(alloca.GetAllocatedType()));
+            current.put(alloca, values);
+        }
+
+        Deque<Frame> stack = new ArrayDeque<>();
+        stack.push(new Frame(fun.GetEntry(), null));
+        while(!stack.isEmpty()){
+            Frame frame = stack.pop();
+            if(frame.pushed != null) {
+                for(Instruction alloca : frame.pushed)
+                    current.get(alloca).pop();
+                continue;
+            }
+
+            BasicBlock block = frame.block;
+            List<Instruction> pushed = new ArrayList<>();
+            Set<Instruction> removed = new HashSet<>();
+            for(Instruction inst : block.GetInstructions()) {
+                if(inst.GetOpcode() == Opcode.PHI && phiVars.containsKey(inst)) {
+                    Instruction alloca = phiVars.get(inst);
+                    current.get(alloca).push(inst);
+                    pushed.add(alloca);
+                }else if(inst.GetOpcode() == Opcode.LOAD && current.containsKey(inst.GetOperand(0))) {
+                    replacements.put(inst, current.get(inst.GetOperand(0)).peek());
+                    removed.add(inst);
+                }else if(inst.GetOpcode() == Opcode.STORE && current.containsKey(inst.GetOperand(1))) {
+                    current.get(inst.GetOperand(1)).push(Cfg.Resolve(inst.GetOperand(0), replacements));
+                    pushed.add((Instruction)inst.GetOperand(1));
+                    removed.add(inst);
+                }
+            }
+            if(!removed.isEmpty())
+                block.RemoveIf(removed::contains);
+
+            for(BasicBlock succ : block.GetSuccessors())
+                for(Instruction inst : succ.GetInstructions()) {
+                    if(inst.GetOpcode() != Opcode.PHI)
+                        break;
+                    Instruction alloca = phiVars.get(inst);
+                    if(alloca != null)
+                        inst.AddIncoming(current.get(alloca).peek(), block);
+                }
+
+            stack.push(new Frame(block, pushed));
+            for(BasicBlock child : domTree.GetChildren(block))
+                stack.push(new Frame(child, null));
+        }
+        return replacements;
+    }
+
+    // Removes phis that merge a single value (x = phi [y , a] , [x , b]) and phis nothing uses.
+    private static void RemoveUselessPhis(Function fun, Set<Instruction> phis){
+        Map<Value,Value> replacements = new HashMap<>();
+        boolean changed = true;
+        while(changed){
+            changed = false;
+            for(Instruction phi : phis) {
+                if(replacements.containsKey(phi))
+                    continue;
+                Value single = Cfg.SingleIncoming(phi, replacements);
+                if(single != null) {
+                    replacements.put(phi, single);
+                    changed = true;
+                }
+            }
+        }
+        Cfg.ReplaceAll(fun, replacements);
+
+        // Live phis are used by some other instruction or by a live phi.
+        Set<Instruction> live = new HashSet<>();
+        Deque<Instruction> work = new ArrayDeque<>();
+        for(BasicBlock block : fun.GetBlocks())
+            for(Instruction inst : block.GetInstructions()) {
+                if(inst.GetOpcode() == Opcode.PHI && phis.contains(inst))
+                    continue;
+                for(Value operand : inst.GetOperands())
+                    if(phis.contains(operand) && live.add((Instruction)operand))
+                        work.add((Instruction)operand);
+            }
+        while(!work.isEmpty())
+            for(Value operand : work.poll().GetOperands())
+                if(phis.contains(operand) && live.add((Instruction)operand))
+                    work.add((Instruction)operand);
+
+        for(BasicBlock block : fun.GetBlocks())
+            block.RemoveIf(inst -> inst.GetOpcode() == Opcode.PHI && phis.contains(inst) && !live.contains(inst));
+    }
+
+}
@@ -0,0 +1,23 @@
+package LLVM_Generation.Passes;
+
+import LLVM_Generation.IR.Function;
+import LLVM_Generation.IR.Module;
+
+public abstract class Pass {
+    /*---------------------------------------------------
+    * A transformation of the generated module. Most
+    * passes work on one function at a time and only
+    * override RunOnFunction.
+    ---------------------------------------------------*/
+
+    public abstract String GetName();
+
+    public void Run(Module module){
+        for(Function fun : module.GetFunctions())
+            if(!fun.IsExternal())
+                RunOnFunction(fun);
+    }
+
+    protected void RunOnFunction(Function fun) {}
+
+}
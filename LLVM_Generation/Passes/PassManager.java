@@ -0,0 +1,77 @@
+package LLVM_Generation.Passes;
+
+import LLVM_Generation.IR.Module;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class PassManager {
+    /*--------------------------------------------------------
+    * Runs a list of passes over a module , in order.
+    * -O runs every pass in DEFAULT order , --passes a,b,...
+    * runs the given ones ("verify" checks the result of the
+    * passes before it). Passes keep no state between
+    * modules , a new instance is created for every run so
+    * files compiled in parallel dont share them.
+    --------------------------------------------------------*/
+
+    // fold runs again after cse , which forwards stored values (e.g. the size of a new array) that it can fold.
+    public static final List<String> DEFAULT = List.of("mem2reg", "devirt", "inline", "fold", "cse", "fold", "bce", "licm", "escape");
+
+    private final List<String> names;
+    private final int inlineBudget; // Largest method inlined , in instructions.
+
+    public PassManager(List<String> names){
+        this(names, Inliner.DEFAULT_BUDGET);
+    }
+
+    // Throws IllegalArgumentException for an unknown pass.
+    public PassManager(List<String> names, int inlineBudget){
+        this.inlineBudget = inlineBudget;
+        for(String name : names)
+            Create(name);
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+    }
+
+    public static PassManager None() { return new PassManager(List.of()); }
+
+    public List<String> GetNames() { return names; }
+    public boolean IsEmpty() { return names.isEmpty(); }
+
+    private Pass Create(String name){
+        switch (name){
+            case "mem2reg":
+                return new Mem2Reg();
+            case "devirt":
+                return new Devirtualization();
+            case "inline":
+                return new Inliner(inlineBudget);
+            case "fold":
+                return new ConstantFolding();
+            case "cse":
+                return new CommonSubexpressionElimination();
+            case "bce":
+                return new BoundsCheckElimination();
+            case "licm":
+                return new LoopInvariantCodeMotion();
+            case "escape":
+                return new EscapeAnalysis();
+            case "verify":
+                return new Verifier();
+            default:
+                throw new IllegalArgumentException("Unknown pass " + name + ".");
+        }
+    }
+
+    public void Run(Module module){
+        for(String name : names)
+            Create(name).Run(module);
+    }
+
+    public String toString(){
+        String text = String.join(",", names);
+        return names.contains("inline") ? text + " inline-budget=" + inlineBudget : text;
+    }
+
+}
@@ -0,0 +1,151 @@
+package LLVM_Generation.Passes;
+
+import LLVM_Generation.IR.*;
+
+import java.util.*;
+
+public class Verifier extends Pass {
+    /*-------------------------------------------------------------
+    * Checks that a function is well formed llvm , so a broken
+    * pass is caught here instead of by llc :
+    *   - every block ends with its only terminator ,
+    *   - phis come first and have one value per predecessor ,
+    *   - every operand is defined before it is used (the
+    *     definition dominates the use) ,
+    *   - operand types match what the instruction expects.
+    * Put it after the passes to check ("--passes mem2reg,verify").
+    * Errors are thrown as IllegalStateException.
+    -------------------------------------------------------------*/
+
+    public String GetName() { return "verify"; }
+
+    protected void RunOnFunction(Function fun){
+        DominatorTree domTree = new DominatorTree(fun);
+        Map<Instruction,Integer> position = new HashMap<>();
+        for(BasicBlock block : fun.GetBlocks()) {
+            if(block.GetParent() != fun)
+                Fail(fun, block, null, "block does not belong to the function");
+            List<Instruction> insts = block.GetInstructions();
+            for(int i = 0; i < insts.size(); i++)
+                position.put(insts.get(i), i);
+        }
+
+        for(BasicBlock block : fun.GetBlocks()) {
+            List<Instruction> insts = block.GetInstructions();
+            if(!block.IsTerminated())
+                Fail(fun, block, null, "block has no terminator");
+            boolean phis = true;
+            for(int i = 0; i < insts.size(); i++) {
+                Instruction inst = insts.get(i);
+                if(inst.GetParent() != block)
+                    Fail(fun, block, inst, "wrong parent block");
+                if(inst.GetOpcode().IsTerminator() && i != insts.size() - 1)
+                    Fail(fun, block, inst, "terminator in the middle of the block");
+                if(inst.GetOpcode() == Opcode.PHI) {
+                    if(!phis)
+                        Fail(fun, block, inst, "phi after a non phi instruction");
+                    CheckPhi(fun, block, inst, domTree, position);
+                }else{
+                    phis = false;
+                    for(Value operand : inst.GetOperands())
+                        CheckDefined(fun, block, inst, operand, block, i, domTree, position);
+                }
+                for(BasicBlock target : inst.GetBlocks())
+                    if(target.GetParent() != fun)
+                        Fail(fun, block, inst, "branch to a block outside of the function");
+                CheckTypes(fun, block, inst);
+            }
+        }
+    }
+
+    private void CheckPhi(Function fun, BasicBlock block, Instruction phi, DominatorTree domTree, Map<Instruction,Integer> position){
+        if(!domTree.IsReachable(block))
+            return;
+        List<BasicBlock> preds = new ArrayList<>(domTree.GetPredecessors(block));
+        List<BasicBlock> incoming = new ArrayList<>();
+        for(int i = 0; i < phi.GetIncomingCount(); i++) {
+            BasicBlock from = phi.GetIncomingBlock(i);
+            incoming.add(from);
+            if(!SameType(phi.GetIncomingValue(i).GetType(), phi.GetType())) // Every object type is i8*.
+                Fail(fun, block, phi, "incoming value of type " + phi.GetIncomingValue(i).GetType());
+            // The value has to be available at the end of the incoming block.
+            CheckDefined(fun, block, phi, phi.GetIncomingValue(i), from, from.GetInstructions().size(), domTree, position);
+        }
+        Comparator<BasicBlock> byIdentity = Comparator.comparingInt(System::identityHashCode);
+        preds.sort(byIdentity);
+        incoming.sort(byIdentity);
+        if(!preds.equals(incoming))
+            Fail(fun, block, phi, "incoming blocks dont match the predecessors");
+    }
+
+    // operand has to be defined before index in block.
+    private void CheckDefined(Function fun, BasicBlock userBlock, Instruction user, Value operand, BasicBlock block, int index,
+                              DominatorTree domTree, Map<Instruction,Integer> position){
+        if(operand instanceof Argument) {
+            if(((Argument)operand).GetParent() != fun)
+                Fail(fun, userBlock, user, "argument of another function");
+            return;
+        }
+        if(!(operand instanceof Instruction))
+            return; // Constants , globals and functions.
+        Instruction def = (Instruction)operand;
+        if(def.GetParent() == null || def.GetParent().GetParent() != fun)
+            Fail(fun, userBlock, user, "operand is not in the function");
+        if(!domTree.IsReachable(block))
+            return;
+        BasicBlock defBlock = def.GetParent();
+        boolean defined = (defBlock == block) ? position.get(def) < index : domTree.Dominates(defBlock, block);
+        if(!defined)
+            Fail(fun, userBlock, user, "operand does not dominate its use");
+    }
+
+    private void CheckTypes(Function fun, BasicBlock block, Instruction inst){
+        switch (inst.GetOpcode()){
+            case LOAD:
+                Expect(fun, block, inst, inst.GetOperand(0).GetType().GetElementType() == inst.GetType(), "load type");
+                break;
+            case STORE:
+                Expect(fun, block, inst, inst.GetOperand(1).GetType().IsPointer()
+                        && PointeeMatches(inst.GetOperand(1).GetType(), inst.GetOperand(0).GetType()), "store type");
+                break;
+            case ADD: case SUB: case MUL: case XOR:
+                Expect(fun, block, inst, inst.GetOperand(0).GetType() == inst.GetType() && inst.GetOperand(1).GetType() == inst.GetType(),
+                        "binary operand types");
+                break;
+            case ICMP:
+                Expect(fun, block, inst, SameType(inst.GetOperand(0).GetType(), inst.GetOperand(1).GetType()), "icmp operand types");
+                break;
+            case BR:
+                Expect(fun, block, inst, inst.GetOperand(0).GetType() == Type.I1 && inst.GetBlocks().size() == 2, "branch condition");
+                break;
+            case RET:
+                Type returned = (inst.GetOperandCount() == 0) ? Type.VOID : inst.GetOperand(0).GetType();
+                Expect(fun, block, inst, SameType(returned, fun.GetReturnType()), "return type");
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Object types are all i8* in llvm , so any two of them match.
+    private static boolean SameType(Type a, Type b){
+        return a == b || (a.IsObject() && b.IsObject()) || (a.IsObject() && b == Type.I8.PointerTo()) || (b.IsObject() && a == Type.I8.PointerTo());
+    }
+
+    private static boolean PointeeMatches(Type pointer, Type value){
+        return SameType(pointer.GetElementType(), value) || (pointer.IsObject() && value == Type.I8);
+    }
+
+    private void Expect(Function fun, BasicBlock block, Instruction inst, boolean ok, String what){
+        if(!ok)
+            Fail(fun, block, inst, "wrong " + what);
+    }
+
+    private static void Fail(Function fun, BasicBlock block, Instruction inst, String message){
+        int index = fun.GetBlocks().indexOf(block);
+        String where = "@" + fun.GetName() + " block " + index
+                + ((inst == null) ? "" : " instruction " + block.GetInstructions().indexOf(inst) + " (" + inst.GetOpcode() + ")");
+        throw new IllegalStateException("Invalid IR in " + where + ": " + message);
+    }
+
+}
@@ -0,0 +1,269 @@
+package LLVM_Generation;
+
+import CompactAST.Tree;
+import CompactAST.Tree.Kind;
+import CompactAST.TreeWalker;
+import LLVM_Generation.IR.*;
+import LLVM_Generation.IR.Type;
+import TypeChecking.ClassT;
+import TypeChecking.FunctionT;
+import TypeChecking.TypeT;
+
+import java.util.Arrays;
+
+public class WorklistGenerator extends TreeWalker<Value> {
+    /*-------------------------------------------------------------
+    * Generates the methods of a type checked compact Tree without
+    * recursion (--stack-safe) , into the module of a
+    * GeneratorVisitor. The instructions and blocks are created in
+    * the same order as GeneratorVisitor does , so the module is
+    * the same. Statements return null.
+    -------------------------------------------------------------*/
+
+    private final GeneratorVisitor gen;
+    private final IRBuilder builder;
+    private FunctionT fun; //Method being generated.
+
+    public WorklistGenerator(GeneratorVisitor gen, Tree tree){
+        super(tree);
+        this.gen = gen;
+        this.builder = gen.builder;
+    }
+
+    public void Generate(){
+        for(int decl = tree.GetFirstChild(tree.GetRoot()); decl >= 0; decl = tree.GetNext(decl))
+            Generate(decl);
+    }
+
+    // The main class or one class declaration (--stream generates them one at a time).
+    public void Generate(int decl){
+        ClassT currClass = gen.symbolTable.GetClass(tree.GetNodeName(tree.GetFirstChild(decl)));
+        if(tree.GetKind(decl) == Kind.MAIN_CLASS) {
+            fun = currClass.GetFunction("main");
+            gen.AllocateLocals(fun);
+            for(int statement = GetBody(decl); statement >= 0; statement = tree.GetNext(statement))
+                Walk(statement);
+            gen.LinkFrame();
+            builder.Ret(Constant.ZERO);
+            return;
+        }
+        for(int member = GetMembers(decl); member >= 0; member = tree.GetNext(member))
+            if(tree.GetKind(member) == Kind.METHOD)
+                GenerateMethod(currClass, member);
+    }
+
+    private void GenerateMethod(ClassT currClass, int method){
+        fun = currClass.GetFunction(tree.GetNodeName(tree.GetNext(tree.GetFirstChild(method))));
+        gen.AllocateLocals(fun);
+        int child = GetBody(method);
+        for(; tree.GetNext(child) >= 0; child = tree.GetNext(child))
+            Walk(child);
+
+        Value val = Walk(child);
+        gen.LinkFrame();
+        builder.Ret(val);
+    }
+
+    protected void Step(int node, Kind kind, int step){
+        switch (kind){
+            /* STATEMENTS --------------------------------------- */
+            case BLOCK:
+                if(step > 0)
+                    Pop();
+                int statement = NextChild();
+                if(statement >= 0)
+                    Visit(statement);
+                else
+                    Return(null);
+                break;
+            case ASSIGNMENT:
+                if(step == 0) {
+                    String id = tree.GetNodeName(NextChild());
+                    if(fun.GetVarType(id) == TypeT.STRING_ARRAY) { // Only case where arg is used is ignored.
+                        Return(null);
+                        break;
+                    }
+                    SetState(id);
+                    Visit(NextChild());
+                }else{
+                    builder.Store(Pop(), gen.GetVariablePtr((String)GetState(), fun));
+                    Return(null);
+                }
+                break;
+            case ARRAY_ASSIGNMENT:
+                if(step == 0) {
+                    SetState(tree.GetNodeName(NextChild()));
+                    Visit(NextChild());
+                }else if(step == 1) {
+                    Visit(NextChild());
+                }else{
+                    Value val = Pop();
+                    Value indexVal = Pop();
+                    Value array = gen.LoadVariable((String)GetState(), fun);
+                    builder.Store(val, gen.GetElementPtr(array, indexVal));
+                    Return(null);
+                }
+                break;
+            case IF:
+                If(step);
+                break;
+            case WHILE:
+                While(step);
+                break;
+            case PRINT:
+                if(step == 0) {
+                    Visit(NextChild());
+                }else{
+                    builder.Call(Type.VOID, gen.printInt, Pop());
+                    Return(null);
+                }
+                break;
+
+            /* EXPRESSIONS --------------------------------------- */
+            case INTEGER_LITERAL: Return(Constant.Parse(tree.GetNodeName(node))); break;
+            case TRUE: Return(Constant.TRUE); break;
+            case FALSE: Return(Constant.FALSE); break;
+            case IDENTIFIER: Return(gen.LoadVariable(tree.GetNodeName(node), fun)); break;
+            case THIS: Return(gen.This()); break;
+            case ALLOCATION: Return(gen.NewObject(tree.GetNodeName(NextChild()))); break;
+            case BRACKET: case BOOLEAN_ARRAY_ALLOCATION: case INT_ARRAY_ALLOCATION: case NOT: case ARRAY_LENGTH:
+                if(step == 0)
+                    Visit(NextChild());
+                else
+                    Return(Unary(kind, Pop()));
+                break;
+            case COMPARE: case PLUS: case MINUS: case TIMES: case ARRAY_LOOKUP:
+                if(step < 2) {
+                    Visit(NextChild());
+                    break;
+                }
+                Value bVal = Pop();
+                Value aVal = Pop();
+                Return(Binary(kind, aVal, bVal));
+                break;
+            case AND:
+                And(step);
+                break;
+            case MESSAGE_SEND:
+                if(step == 0) {
+                    Visit(NextChild());
+                    break;
+                }
+                if(step == 1)
+                    SetState(tree.GetNodeName(NextChild()));
+                int arg = NextChild();
+                if(arg >= 0) {
+                    Visit(arg);
+                    break;
+                }
+                Value[] funArgs = new Value[step]; // The receiver and step - 1 arguments.
+                for(int i = funArgs.length - 1; i >= 0; i--)
+                    funArgs[i] = Pop();
+                Return(gen.CallMethod((String)GetState(), Arrays.asList(funArgs)));
+                break;
+            default:
+                throw new IllegalStateException(kind + " is not a statement or an expression.");
+        }
+    }
+
+    private Value Unary(Kind kind, Value val){
+        switch (kind){
+            case BOOLEAN_ARRAY_ALLOCATION: return gen.NewBooleanArray(val);
+            case INT_ARRAY_ALLOCATION: return gen.NewIntArray(val);
+            case NOT: return builder.Not(val);
+            case ARRAY_LENGTH: return gen.GetArrLength(val);
+            default: return val; //Bracket.
+        }
+    }
+
+    private Value Binary(Kind kind, Value aVal, Value bVal){
+        switch (kind){
+            case COMPARE: return builder.ICmp(Instruction.Predicate.SLT,aVal,bVal);
+            case PLUS: return builder.Binary(Opcode.ADD,aVal,bVal);
+            case MINUS: return builder.Binary(Opcode.SUB,aVal,bVal);
+            case TIMES: return builder.Binary(Opcode.MUL,aVal,bVal);
+            default: return builder.Load(gen.GetElementPtr(aVal,bVal)); //Lookup.
+        }
+    }
+
+    // Condition , then , else. The state holds the else and end blocks.
+    private void If(int step){
+        if(step == 0) {
+            Visit(NextChild());
+        }else if(step == 1) {
+            Value boolExpr = Pop();
+            BasicBlock lab1 = builder.NewBlock();
+            BasicBlock lab2 = builder.NewBlock();
+            BasicBlock lab3 = builder.NewBlock();
+            builder.Branch(boolExpr,lab1,lab2);
+            builder.StartBlock(lab1);
+            SetState(new BasicBlock[]{lab2, lab3});
+            Visit(NextChild());
+        }else{
+            Pop();
+            BasicBlock[] labels = (BasicBlock[])GetState();
+            builder.Jump(labels[1]);
+            if(step == 2) {
+                builder.StartBlock(labels[0]);
+                Visit(NextChild());
+            }else{
+                builder.StartBlock(labels[1]);
+                Return(null);
+            }
+        }
+    }
+
+    // Condition , body. The state holds the condition and end blocks.
+    private void While(int step){
+        if(step == 0) {
+            BasicBlock lab1 = builder.NewBlock();
+            builder.Jump(lab1);
+            builder.StartBlock(lab1);
+            SetState(new BasicBlock[]{lab1, null});
+            Visit(NextChild());
+        }else if(step == 1) {
+            Value boolExpr = Pop();
+            BasicBlock[] labels = (BasicBlock[])GetState();
+            BasicBlock lab2 = builder.NewBlock();
+            labels[1] = builder.NewBlock();
+            builder.Branch(boolExpr,lab2,labels[1]);
+            builder.StartBlock(lab2);
+            Visit(NextChild());
+        }else{
+            Pop();
+            BasicBlock[] labels = (BasicBlock[])GetState();
+            builder.Jump(labels[0]);
+            builder.StartBlock(labels[1]);
+            Return(null);
+        }
+    }
+
+    // Left clause , right clause only if the left one is true. The state holds the block ending the left
+    // clause and the end block.
+    private void And(int step){
+        if(step == 0) {
+            Visit(NextChild());
+        }else if(step == 1) {
+            Value boolExpr1 = Pop();
+            BasicBlock lhsEnd = builder.GetInsertBlock();
+            BasicBlock rhs = builder.NewBlock();
+            BasicBlock end = builder.NewBlock();
+            builder.Branch(boolExpr1,rhs,end);
+            builder.StartBlock(rhs);
+            SetState(new BasicBlock[]{lhsEnd, end});
+            Visit(NextChild());
+        }else{
+            Value boolExpr2 = Pop();
+            BasicBlock[] labels = (BasicBlock[])GetState();
+            BasicBlock rhsEnd = builder.GetInsertBlock(); // The right clause may have branched itself.
+            builder.Jump(labels[1]);
+
+            builder.StartBlock(labels[1]);
+            Instruction phi = builder.Phi(Type.I1);
+            phi.AddIncoming(Constant.FALSE,labels[0]);
+            phi.AddIncoming(boolExpr2,rhsEnd);
+            Return(phi);
+        }
+    }
+
+}
@@ -1,76 +1,385 @@
+import CompactAST.Inflater;
+import CompactAST.Tree;
+import LLVM_Generation.Allocator;
 import LLVM_Generation.GeneratorVisitor;
+import LLVM_Generation.IR.Function;
+import LLVM_Generation.IROutput;
+import LLVM_Generation.IRPrinter;
+import LLVM_Generation.WorklistGenerator;
+import LLVM_Generation.Passes.Inliner;
+import LLVM_Generation.Passes.PassManager;
+import TypeChecking.ClassT;
+import TypeChecking.FunctionT;
 import TypeChecking.InitVisitor;
+import TypeChecking.ParallelTypeChecker;
+import TypeChecking.SymbolTable;
 import TypeChecking.TypeCheckingVisitor;
+import TypeChecking.WorklistTypeChecker;
 import syntaxtree.Goal;
+import syntaxtree.Node;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class Main {
 
     public static void main (String [] args){
-        for(String currFilePath : args) {
+        if(args.length >= 2 && args[0].equals("--server")) { // --server SOCKET [-j N] : keeps the compiler warm.
+            CompilerServer.Serve(args);
+            return;
+        }
+        if(args.length >= 2 && args[0].equals("--client")) { // --client SOCKET args... : compiles through the server.
+            System.exit(CompilerClient.Send(args));
+        }
+        System.exit(Run(args, System.out, System.err));
+    }
 
-            //
-            try {
-                File myObj = new File(currFilePath.substring(0,currFilePath.length()-5)+".ll");
-                if (myObj.createNewFile()) {
-                    CheckFile(currFilePath,myObj);
-                } else {
-                    System.out.println("File already exists.");
+    // The options followed by a value.
+    private static final List<String> VALUE_OPTIONS = List.of("-j", "--stats-json", "--cache", "--passes", "--inline-budget", "--alloc");
+
+    // Compiles the files given by the command line arguments. Returns the exit status.
+    public static int Run(String [] args, PrintStream out, PrintStream err){
+        int jobs = Runtime.getRuntime().availableProcessors();
+        List<String> filePaths = new ArrayList<>();
+        boolean printStats = false;
+        String statsJson = null;
+        Path cacheDir = null;
+        List<String> passes = new ArrayList<>();
+        int inlineBudget = Inliner.DEFAULT_BUDGET;
+        Allocator allocator = Allocator.CALLOC;
+        boolean stackSafe = false;
+        boolean stream = false;
+        boolean parallelTypeCheck = false;
+
+        for(int i = 0; i < args.length; i++) {
+            if(args[i].equals("-j") && i + 1 < args.length) { // -j N : number of files compiled in parallel.
+                if((jobs = ParseJobs(args[++i], err)) == 0)
+                    return 1;
+            }else if(args[i].startsWith("-j") && args[i].length() > 2) { // -jN
+                if((jobs = ParseJobs(args[i].substring(2), err)) == 0)
+                    return 1;
+            }else if(args[i].equals("--stats")) { // Per phase metrics of every file on stderr.
+                printStats = true;
+            }else if(args[i].equals("--stats-json") && i + 1 < args.length) { // The same metrics as json.
+                statsJson = args[++i];
+            }else if(args[i].equals("--cache") && i + 1 < args.length) { // Keeps every output , see CompileCache.
+                cacheDir = Paths.get(args[++i]);
+            }else if(args[i].equals("-O")) { // Every optimization pass.
+                passes = new ArrayList<>(PassManager.DEFAULT);
+            }else if(args[i].equals("--passes") && i + 1 < args.length) { // Comma separated passes , in order.
+                passes = new ArrayList<>();
+                for(String name : args[++i].split(","))
+                    if(!name.isEmpty())
+                        passes.add(name);
+            }else if(args[i].equals("--inline-budget") && i + 1 < args.length) { // Largest method inlined , in instructions.
+                try {
+                    inlineBudget = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    err.println("Invalid inline budget " + args[i] + ".");
+                    return 1;
+                }
+            }else if(args[i].equals("--alloc") && i + 1 < args.length) { // Runtime allocator of the programs.
+                allocator = Allocator.Parse(args[++i]);
+                if(allocator == null) {
+                    err.println("Unknown allocator " + args[i] + ".");
+                    return 1;
                 }
+            }else if(args[i].equals("--stack-safe")) { // Type checks and generates without recursion.
+                stackSafe = true;
+            }else if(args[i].equals("--stream")) { // Checks , generates and prints one class at a time.
+                stream = true;
+            }else if(args[i].equals("--parallel-typecheck")) { // Checks the methods of a file concurrently.
+                parallelTypeCheck = true;
+            }else if(VALUE_OPTIONS.contains(args[i])) { // Last argument.
+                err.println("Missing value for " + args[i] + ".");
+                return 1;
+            }else if(args[i].startsWith("-")) {
+                err.println("Unknown option " + args[i] + ".");
+                return 1;
+            }else if(!args[i].endsWith(".java")) { // The .ll is named after the file without ".java".
+                err.println("Not a .java file : " + args[i] + ".");
+                return 1;
+            }else{
+                filePaths.add(args[i]);
+            }
+        }
+
+        CompileOptions options;
+        try {
+            options = new CompileOptions(new PassManager(passes, inlineBudget), allocator, cacheDir, stackSafe, stream, parallelTypeCheck);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            return 1;
+        }
+
+        List<CompileStats> stats = new ArrayList<>();
+        for(String currFilePath : filePaths)
+            stats.add(new CompileStats(currFilePath, printStats || statsJson != null));
+
+        long start = System.nanoTime();
+        boolean failed = CompileAll(filePaths, jobs, stats, options, out, err);
+        long wallTime = System.nanoTime() - start;
+
+        if(printStats)
+            CompileStats.PrintSummary(stats, wallTime, err);
+        if(statsJson != null) {
+            try {
+                Files.write(Paths.get(statsJson), CompileStats.ToJson(stats, wallTime).getBytes(StandardCharsets.UTF_8));
             } catch (IOException e) {
-                System.out.println("An error occurred.");
-                e.printStackTrace();
+                err.println("Could not write " + statsJson + ": " + e.getMessage());
+            }
+        }
+        return failed ? 1 : 0;
+    }
+
+    // At least 1 , or 0 when the value is not a number.
+    static int ParseJobs(String value, PrintStream err){
+        try {
+            return Math.max(1, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            err.println("Invalid job count " + value + ".");
+            return 0;
+        }
+    }
+
+    // Compiles every file on a pool of at most jobs threads. Each file gets its own parser and visitors
+    // and its diagnostics are buffered, so they are printed in the same order as the arguments.
+    // stats holds the metrics of each file , in the same order. Returns true if any of the files failed.
+    public static boolean CompileAll(List<String> filePaths, int jobs, List<CompileStats> stats, CompileOptions options,
+                                     PrintStream out, PrintStream err){
+        if(jobs <= 1 || filePaths.size() <= 1) { // Nothing to parallelize.
+            boolean failed = false;
+            for(int i = 0; i < filePaths.size(); i++)
+                failed |= !CompileFile(filePaths.get(i), out, err, stats.get(i), options);
+            return failed;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(jobs, filePaths.size()));
+        List<Future<FileResult>> results = new ArrayList<>();
+        for(int i = 0; i < filePaths.size(); i++) {
+            String currFilePath = filePaths.get(i);
+            CompileStats currStats = stats.get(i);
+            results.add(pool.submit(() -> FileResult.Compile(currFilePath, currStats, options)));
+        }
+        pool.shutdown();
+
+        boolean failed = false;
+        for(int i = 0; i < results.size(); i++) {
+            try {
+                FileResult result = results.get(i).get();
+                result.Print(out, err);
+                failed |= !result.success;
+            } catch (ExecutionException e) {
+                err.println(filePaths.get(i) + ": " + e.getCause());
+                failed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pool.shutdownNow();
+                return true;
             }
-            //
+        }
+        return failed;
+    }
+
+    // Diagnostics of a single file, kept until it is that file's turn to be printed.
+    private static class FileResult {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        boolean success;
+
+        static FileResult Compile(String filePath, CompileStats stats, CompileOptions options){
+            FileResult result = new FileResult();
+            PrintStream out = new PrintStream(result.out, true);
+            PrintStream err = new PrintStream(result.err, true);
+            result.success = CompileFile(filePath, out, err, stats, options);
+            out.flush();
+            err.flush();
+            return result;
+        }
 
+        void Print(PrintStream toOut, PrintStream toErr){
+            toOut.write(out.toByteArray(), 0, out.size());
+            toOut.flush();
+            toErr.write(err.toByteArray(), 0, err.size());
+            toErr.flush();
         }
     }
 
-    public static void CheckFile(String filePath,File writeFile){
-        FileInputStream fis = null;
+    // Sources that did not change since their .ll was generated are skipped.
+    public static boolean CompileFile(String currFilePath, PrintStream out, PrintStream err, CompileStats stats, CompileOptions options){
+        CompileCache cache = options.GetCache();
+        File myObj = new File(currFilePath.substring(0,currFilePath.length()-5)+".ll");
+        ByteBuffer source;
+        try (FileInputStream fis = new FileInputStream(currFilePath)) {
+            FileChannel channel = fis.getChannel(); // Mapped , the lexer reads the bytes in place.
+            source = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch(IOException ex){
+            err.println(ex.getMessage());
+            stats.SetSuccess(false);
+            return false;
+        }
+
+        String key = cache.Key(source);
+        boolean success;
+        if (CompileCache.IsUpToDate(myObj.toPath(), key) || cache.Restore(key, myObj.toPath())) {
+            stats.SetCached(true);
+            success = true;
+        } else {
+            success = CheckFile(source,key,myObj,out,err,stats,options);
+            if(success)
+                cache.Store(key, myObj.toPath());
+            else
+                CompileCache.DeleteStale(myObj.toPath()); // An old .ll must not look like the output of the new source.
+        }
+        stats.SetSuccess(success);
+        return success;
+    }
+
+    public static boolean CheckFile(ByteBuffer source,String key,File writeFile,PrintStream out,PrintStream err,CompileStats stats,
+                                    CompileOptions options){
+        PassManager passes = options.GetPasses();
         try{
-            fis = new FileInputStream(filePath);
-            MiniJavaParser parser = new MiniJavaParser(fis);
-            Goal root = parser.Goal();
+            stats.Start(CompileStats.Phase.PARSE);
+            Tree tree = CompactParser.Parse(source); // Null if the source needs MiniJavaParser.
+            Goal root = (tree != null) ? new Inflater(tree).Goal() : FastTokenManager.CreateParser(source).Goal();
+            stats.End();
+            if(tree != null)
+                stats.SetAstNodes(tree.GetSize());
+            else
+                stats.CountNodes(root);
             //System.err.println("Program parsed successfully.");
 
             try {
 
 
-                try {
-                    FileWriter myWriter = new FileWriter(writeFile.getAbsolutePath());
+                // The .ll file only appears once the whole output has been written.
+                try (IROutput myWriter = IROutput.ToFile(writeFile.toPath())) {
+                    myWriter.Append(CompileCache.HEADER).Append(key).Append('\n');
 
                     //InitVisitor initializes some data structures.
+                    stats.Start(CompileStats.Phase.INIT);
                     InitVisitor init = new InitVisitor();
-                    root.accept(init, null);
-                    TypeCheckingVisitor typechecker = new TypeCheckingVisitor(init.GetSymbolTable());
-                    root.accept(typechecker,null);
+                    (tree != null ? new Inflater(tree, false).Goal() : root).accept(init, null);
+                    if(stats.IsEnabled())
+                        stats.SetSymbols(init.GetSymbolTable().GetSymbolCount());
+                    boolean walk = tree != null && options.IsStackSafe(); // The compact tree is walked without recursion.
+                    if(options.IsStreaming()) {
+                        stats.SetInstructions(StreamClasses(root, walk ? tree : null, init.GetSymbolTable(), options, myWriter, stats));
+                        myWriter.Commit();
+                        return true;
+                    }
+                    stats.Start(CompileStats.Phase.TYPECHECK);
+                    if(options.IsParallelTypeCheck()) {
+                        ParallelTypeChecker checker = new ParallelTypeChecker(init.GetSymbolTable(), ForkJoinPool.commonPool());
+                        if(walk)
+                            checker.Check(tree);
+                        else
+                            checker.Check(root);
+                    }else if(walk)
+                        new WorklistTypeChecker(init.GetSymbolTable(), tree).Check();
+                    else
+                        root.accept(new TypeCheckingVisitor(init.GetSymbolTable()),null);
                     //System.err.println("Program is semantically correct.");
                     //typechecker.PrintOffsets();
-                    GeneratorVisitor gen = new GeneratorVisitor(init.GetSymbolTable(),myWriter);
-                    root.accept(gen,null);
+                    stats.Start(CompileStats.Phase.GENERATE);
+                    GeneratorVisitor gen = new GeneratorVisitor(init.GetSymbolTable(), options.GetAllocator());
+                    if(walk)
+                        new WorklistGenerator(gen, tree).Generate();
+                    else
+                        root.accept(gen,null);
+                    if(!passes.IsEmpty()) {
+                        stats.Start(CompileStats.Phase.OPTIMIZE);
+                        passes.Run(gen.GetModule());
+                    }
+                    if(stats.IsEnabled())
+                        stats.SetInstructions(gen.GetModule().GetInstructionCount());
+                    stats.Start(CompileStats.Phase.PRINT);
+                    new IRPrinter(myWriter).Print(gen.GetModule());
 
-                    myWriter.close();
-                } catch (IOException e) {
-                    System.out.println("An error occurred.");
-                    e.printStackTrace();
+                    myWriter.Commit();
+                    return true;
+                } catch (IOException | UncheckedIOException e) {
+                    out.println("An error occurred.");
+                    e.printStackTrace(out);
                 }
 
             }catch(RuntimeException ex){
-                System.out.println(ex.toString());
+                out.println(ex.toString());
             }
 
         } catch(ParseException ex){
-            System.out.println(ex.getMessage());
-        } catch(FileNotFoundException ex){
-            System.err.println(ex.getMessage());
+            out.println(ex.getMessage());
+        } catch(TokenMgrError ex){ // Lexical error , an Error thrown by the generated token manager.
+            out.println(ex.getMessage());
         } finally{
-            try{
-                if(fis != null) fis.close();
-            } catch(IOException ex){
-                System.err.println(ex.getMessage());
+            stats.End();
+        }
+        return false;
+    }
+
+    // --stream : the main class and then every class declaration is type checked , generated and printed
+    // before the next one. Its syntax tree and the bodies of its functions are dropped afterwards , so only
+    // the symbol tables and one class are kept in memory. The output is the same as the whole module's ,
+    // the classes of the symbol table and the functions of the module are both in declaration order.
+    // With a tree the stack-safe walkers are used. Returns the number of instructions printed.
+    private static long StreamClasses(Goal root, Tree tree, SymbolTable table, CompileOptions options, IROutput output,
+                                      CompileStats stats){
+        stats.Start(CompileStats.Phase.TYPECHECK);
+        ParallelTypeChecker parallel = options.IsParallelTypeCheck() ? new ParallelTypeChecker(table, ForkJoinPool.commonPool()) : null;
+        TypeCheckingVisitor typechecker = (tree == null && parallel == null) ? new TypeCheckingVisitor(table) : null;
+        WorklistTypeChecker checker = (tree != null && parallel == null) ? new WorklistTypeChecker(table, tree) : null;
+        stats.Start(CompileStats.Phase.GENERATE);
+        GeneratorVisitor gen = new GeneratorVisitor(table, options.GetAllocator());
+        WorklistGenerator generator = (tree != null) ? new WorklistGenerator(gen, tree) : null;
+        stats.Start(CompileStats.Phase.PRINT);
+        IRPrinter printer = new IRPrinter(output);
+        printer.PrintDeclarations(gen.GetModule());
+
+        long instructions = 0;
+        int decl = (tree != null) ? tree.GetFirstChild(tree.GetRoot()) : -1;
+        int index = 0;
+        for(ClassT currClass : table.GetClasses()) {
+            Node unit = (index == 0) ? root.f0 : root.f1.nodes.get(index - 1);
+            stats.Start(CompileStats.Phase.TYPECHECK);
+            if(parallel != null && tree != null)
+                parallel.Check(tree, decl);
+            else if(parallel != null)
+                parallel.Check(unit);
+            else if(checker != null)
+                checker.Check(decl);
+            else
+                unit.accept(typechecker, null);
+            stats.Start(CompileStats.Phase.GENERATE);
+            if(generator != null)
+                generator.Generate(decl);
+            else
+                unit.accept(gen, null);
+
+            stats.Start(CompileStats.Phase.PRINT);
+            for(FunctionT fun : currClass.GetFunctions()) {
+                Function function = gen.GetFunction(fun);
+                instructions += function.GetInstructionCount();
+                printer.PrintFunction(function);
+                function.ReleaseBlocks();
             }
+            if(index > 0)
+                root.f1.nodes.set(index - 1, null);
+            if(tree != null)
+                decl = tree.GetNext(decl);
+            index++;
         }
+        return instructions;
     }
 }
@@ -1,29 +1,31 @@
 package TypeChecking;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 public class ClassT {
     private String extendsT;
     private String name; //Needed for (this).
+    private TypeT type;
     private int prevMemberOffset;
     private int prevFuncOffset;
 
     private Map<String,FunctionT> functionsTable;
-    private Map<String,String> memberVariablesTable;
+    private Map<String,TypeT> memberVariablesTable;
 
     private Map<String, Integer> memberOffsets;
     private Map<String, Integer> funcOffsets;
 
-    public int GetFuncOffset(String name,SymbolTable table) {
-        ClassT temp = this;
-        while(temp != null){
-            if(temp.funcOffsets.containsKey(name))
-                return temp.funcOffsets.get(name);
-            temp = table.GetClass(temp.GetExtendType());
-        }
-        return -1;
-    }
+    //Flattened layout with everything inherited , filled once by Resolve.
+    private ClassT superClass;
+    private Map<String,TypeT> allMemberTypes;
+    private Map<String,Integer> allMemberOffsets;
+    private Map<String,FunctionT> allFunctions; //Most derived implementation of each method.
+    private Map<String,Integer> funcSlots;
+    private List<FunctionT> vtable;
 
     public ClassT(String name,String extendsT,int memberOffset,int funcOffset){
         this.functionsTable = SymbolTable.CreateMap();
@@ -57,16 +59,70 @@ public class ClassT {
             throw new RuntimeException("Function " + id + " is already defined.");
     }
 
-    public String GetMemberVar(String id){
+    public TypeT GetMemberVar(String id){
         return memberVariablesTable.get(id);
     }
 
-    public void AddMemberVar(String id,String type){ //Returns false if value already exists.
+    public void AddMemberVar(String id,TypeT type){ //Returns false if value already exists.
         if(memberVariablesTable.put(id,type) != null)
             throw new RuntimeException("Member variable " + id + " is already defined.");
         AddOffset(true,id,type);
     }
 
+    public void Resolve(ClassT superClass){ //The super class has to be resolved first.
+        this.superClass = superClass;
+        if(superClass != null){
+            allMemberTypes = SymbolTable.CreateMap(superClass.allMemberTypes);
+            allMemberOffsets = SymbolTable.CreateMap(superClass.allMemberOffsets);
+            allFunctions = SymbolTable.CreateMap(superClass.allFunctions);
+            funcSlots = SymbolTable.CreateMap(superClass.funcSlots);
+            vtable = new ArrayList<>(superClass.vtable);
+        }else{
+            allMemberTypes = SymbolTable.CreateMap();
+            allMemberOffsets = SymbolTable.CreateMap();
+            allFunctions = SymbolTable.CreateMap();
+            funcSlots = SymbolTable.CreateMap();
+            vtable = new ArrayList<>();
+        }
+
+        allMemberTypes.putAll(memberVariablesTable); //A redeclared member hides the inherited one.
+        allMemberOffsets.putAll(memberOffsets);
+
+        for(FunctionT func : functionsTable.values()){
+            if(func.GetReturnType() == TypeT.VOID) //Static main , not part of the vtable.
+                continue;
+            allFunctions.put(func.GetName(),func);
+            Integer slot = funcSlots.get(func.GetName());
+            if(slot != null){ //Overrides keep the slot of the super class.
+                vtable.set(slot,func);
+            }else{
+                funcSlots.put(func.GetName(),vtable.size());
+                vtable.add(func);
+            }
+        }
+    }
+
+    void Freeze(){ //After Resolve , see SymbolTable.Freeze.
+        for(FunctionT func : functionsTable.values())
+            func.Freeze();
+        functionsTable = Collections.unmodifiableMap(functionsTable);
+        memberVariablesTable = Collections.unmodifiableMap(memberVariablesTable);
+        memberOffsets = Collections.unmodifiableMap(memberOffsets);
+        funcOffsets = Collections.unmodifiableMap(funcOffsets);
+        allMemberTypes = Collections.unmodifiableMap(allMemberTypes);
+        allMemberOffsets = Collections.unmodifiableMap(allMemberOffsets);
+        allFunctions = Collections.unmodifiableMap(allFunctions);
+        funcSlots = Collections.unmodifiableMap(funcSlots);
+        vtable = Collections.unmodifiableList(vtable);
+    }
+
+    public ClassT GetSuperClass() { return superClass; }
+    public TypeT GetFieldType(String id) { return allMemberTypes.get(id); } //Own or inherited.
+    public int GetFieldOffset(String id) { return allMemberOffsets.getOrDefault(id,-1); }
+    public FunctionT FindFunction(String id) { return allFunctions.get(id); } //Own or inherited.
+    public int GetFuncSlot(String id) { return funcSlots.getOrDefault(id,-1); }
+    public List<FunctionT> GetVTable() { return vtable; }
+
     public String GetExtendType(){
         return extendsT;
     }
@@ -76,18 +132,20 @@ public class ClassT {
     }
 
     public String GetName() { return  name; }
+    public TypeT GetType() { return type; }
+    void SetType(TypeT type) { this.type = type; }
 
     public Collection<FunctionT> GetFunctions() { return functionsTable.values(); }
     public Map<String, FunctionT> GetFunctionsHash() { return functionsTable; }
-    public Collection<String> GetMembers() { return memberVariablesTable.values(); }
-    public Map<String,String> GetMembersHash() { return memberVariablesTable; }
+    public Collection<TypeT> GetMembers() { return memberVariablesTable.values(); }
+    public Map<String,TypeT> GetMembersHash() { return memberVariablesTable; }
 
-    public void AddOffset(boolean forMembers,String id, String type){
+    public void AddOffset(boolean forMembers,String id, TypeT type){
         int prevOffset = (forMembers) ? prevMemberOffset : prevFuncOffset;
         ((forMembers) ? memberOffsets : funcOffsets).put(id,prevOffset);
-        if(type.equals("int"))
+        if(type == TypeT.INT)
             prevMemberOffset += 4;
-        else if(type.equals("boolean"))
+        else if(type == TypeT.BOOLEAN)
             prevMemberOffset += 1;
         else //Array or custom class.
             if(forMembers)
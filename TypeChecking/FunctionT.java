@@ -1,20 +1,19 @@
 package TypeChecking;
 
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.Map;
 
 public class FunctionT {
-    private String returnT;
+    private TypeT returnT;
     private String name;
     private ClassT parentClass;
 
-    private Map<String, String> localVariablesTable;
-    private Map<String,String> args; //Used for the argument list check.
-    private Map<String,String> registerTypes;
+    private Map<String,TypeT> localVariablesTable;
+    private Map<String,TypeT> args; //Used for the argument list check.
 
-    public FunctionT(String returnT,ClassT parentClass,String name){
+    public FunctionT(TypeT returnT,ClassT parentClass,String name){
         this.localVariablesTable = SymbolTable.CreateMap();
-        this.registerTypes = SymbolTable.CreateMap();
         this.returnT = returnT;
         this.parentClass = parentClass;
         this.name = name;
@@ -23,30 +22,33 @@ public class FunctionT {
 
     public String GetName() { return name;}
 
-    public String GetVarType(String id){
+    public TypeT GetVarType(String id){
         return localVariablesTable.get(id);
     }
 
-    public Map<String,String> GetRegisterHash() { return registerTypes; }
-
-    public void AddVar(String id,String nLocalVar){
+    public void AddVar(String id,TypeT nLocalVar){
         if(localVariablesTable.put(id,nLocalVar) != null){
             throw new RuntimeException("Local variable " + id + " is already defined.");
         }
     }
 
-    public String GetReturnType(){
+    public TypeT GetReturnType(){
         return returnT;
     }
 
     public ClassT GetParentClass() { return parentClass; }
 
-    public void AddArg(String id,String type) { args.put(id,type); }
-    public LinkedList<String> GetArgs() { return new LinkedList<>(args.values()); }
-    public Map<String,String> GetArgsHash() { return args; }
+    public void AddArg(String id,TypeT type) { args.put(id,type); }
+    public LinkedList<TypeT> GetArgs() { return new LinkedList<>(args.values()); }
+    public Map<String,TypeT> GetArgsHash() { return args; }
+
+    void Freeze(){ //See SymbolTable.Freeze.
+        localVariablesTable = Collections.unmodifiableMap(localVariablesTable);
+        args = Collections.unmodifiableMap(args);
+    }
 
-    public LinkedList<String> GetLocals() { return new LinkedList<>(localVariablesTable.values()); }
-    public Map<String,String> GetLocalsHash() { return localVariablesTable; }
+    public LinkedList<TypeT> GetLocals() { return new LinkedList<>(localVariablesTable.values()); }
+    public Map<String,TypeT> GetLocalsHash() { return localVariablesTable; }
 
 
 
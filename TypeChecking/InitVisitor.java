@@ -28,7 +28,7 @@ public class InitVisitor extends GJDepthFirst<String, Object> {
     public String visit(IntegerArrayType n, Object argu) { return "int[]"; } //Used for int array types.
     public SymbolTable GetSymbolTable() { return symbolTable; }
 
-    public void AddVariableSymbol(String varId, String varType, Object argu,boolean isArg){ //Used in parameter list / local variables or member variables.
+    public void AddVariableSymbol(String varId, TypeT varType, Object argu,boolean isArg){ //Used in parameter list / local variables or member variables.
         if(isAtFuncLevel){
             FunctionT currFunc = (FunctionT)argu;
             currFunc.AddVar(varId,varType);
@@ -40,6 +40,17 @@ public class InitVisitor extends GJDepthFirst<String, Object> {
         }
     }
 
+    /** GOAL.
+     * f0 -> MainClass()
+     * f1 -> ( TypeDeclaration() )*
+     */
+    public String visit(Goal n, Object argu) {
+        n.f0.accept(this, argu);
+        n.f1.accept(this, argu);
+        symbolTable.ResolveLayouts(); //Every class is known , flatten the inherited members and methods once.
+        return null;
+    }
+
     /** MAIN CLASS.
      * f1 -> Identifier()
      * f11 -> Identifier()
@@ -54,13 +65,13 @@ public class InitVisitor extends GJDepthFirst<String, Object> {
         ClassT currClass = new ClassT(mainClassId,"",0,0);
         symbolTable.AddClass(mainClassId,currClass);
 
-        FunctionT currFunc = new FunctionT("void",currClass,"main");
+        FunctionT currFunc = new FunctionT(TypeT.VOID,currClass,"main");
 
         currClass.AddFunction("main",currFunc); // Another function cant have the same name with main.
 
         String argArrId = n.f11.accept(this, argu); // Another local variable inside main cant have the same name.
-        currFunc.AddVar(argArrId,"String[]");
-        currFunc.AddArg(argArrId,"String[]");
+        currFunc.AddVar(argArrId,TypeT.STRING_ARRAY);
+        currFunc.AddArg(argArrId,TypeT.STRING_ARRAY);
 
         isAtFuncLevel = true;
         n.f14.accept(this, currFunc);
@@ -72,7 +83,7 @@ public class InitVisitor extends GJDepthFirst<String, Object> {
      * f1 -> Identifier()
      */
     public String visit(VarDeclaration n, Object argu) {
-        String varType = n.f0.accept(this, argu);
+        TypeT varType = symbolTable.GetType(n.f0.accept(this, argu));
         String varId = n.f1.accept(this, argu);
         AddVariableSymbol(varId,varType,argu,false);
         return null;
@@ -83,7 +94,7 @@ public class InitVisitor extends GJDepthFirst<String, Object> {
      * f1 -> Identifier()
      */
     public String visit(FormalParameter n, Object argu) {
-        String varType = n.f0.accept(this, argu);
+        TypeT varType = symbolTable.GetType(n.f0.accept(this, argu));
         String varId = n.f1.accept(this, argu);
         AddVariableSymbol(varId,varType,argu,true);
         return null;
@@ -140,7 +151,7 @@ public class InitVisitor extends GJDepthFirst<String, Object> {
      * f7 -> ( VarDeclaration() )*
      */
     public String visit(MethodDeclaration n, Object argu) {
-        String funcType = n.f1.accept(this, argu);
+        TypeT funcType = symbolTable.GetType(n.f1.accept(this, argu));
         String funcId = n.f2.accept(this, argu);
 
         FunctionT newFunc = new FunctionT(funcType,(ClassT)argu,funcId);
@@ -155,7 +166,7 @@ public class InitVisitor extends GJDepthFirst<String, Object> {
         while(curClass != null) {
             FunctionT tempFunc;
             if((tempFunc = curClass.GetFunction(funcId)) != null){
-                if(!(tempFunc.GetReturnType().equals(funcType) && IsSameFunc(tempFunc,newFunc))){
+                if(!(tempFunc.GetReturnType() == funcType && IsSameFunc(tempFunc,newFunc))){
                     throw new RuntimeException("Overridden virtual methods cant have different declarations.");
                 }else{
                     isOverride = true;
@@ -166,7 +177,7 @@ public class InitVisitor extends GJDepthFirst<String, Object> {
         }
 
         if(!isOverride){
-            ((ClassT)argu).AddOffset(false,funcId,"");
+            ((ClassT)argu).AddOffset(false,funcId,null);
         }
 
         n.f7.accept(this, newFunc);
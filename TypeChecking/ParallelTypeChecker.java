@@ -0,0 +1,118 @@
+package TypeChecking;
+
+import CompactAST.Tree;
+import CompactAST.Tree.Kind;
+import syntaxtree.*;
+import visitor.GJDepthFirst;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+public class ParallelTypeChecker {
+    /*-------------------------------------------------------------
+    * Type checks the methods of a file concurrently on a fork
+    * join pool (--parallel-typecheck). The symbol table is frozen
+    * first , nothing changes while the methods are checked and
+    * they share one TypeCheckingVisitor (or get their own
+    * WorklistTypeChecker with --stack-safe).
+    * Every task keeps its error at the position of its method in
+    * the file and the first one is thrown once all are done , so
+    * the error is the one the sequential checkers report.
+    -------------------------------------------------------------*/
+
+    private final SymbolTable symbolTable;
+    private final TypeCheckingVisitor checker;
+    private final ForkJoinPool pool;
+    private final List<Runnable> units = new ArrayList<>(); // The main class and every method , in file order.
+
+    public ParallelTypeChecker(SymbolTable symbolTable, ForkJoinPool pool){
+        symbolTable.Freeze();
+        this.symbolTable = symbolTable;
+        this.checker = new TypeCheckingVisitor(symbolTable); //Also checks that every declared type exists.
+        this.pool = pool;
+    }
+
+    // The whole file , or one declaration (MainClass or TypeDeclaration) with --stream.
+    public void Check(Node node){
+        node.accept(new Collector(), null);
+        Run();
+    }
+
+    public void Check(Tree tree){
+        for(int decl = tree.GetFirstChild(tree.GetRoot()); decl >= 0; decl = tree.GetNext(decl))
+            Collect(tree, decl);
+        Run();
+    }
+
+    public void Check(Tree tree, int decl){
+        Collect(tree, decl);
+        Run();
+    }
+
+    private void Collect(Tree tree, int decl){
+        if(tree.GetKind(decl) == Kind.MAIN_CLASS) {
+            units.add(() -> new WorklistTypeChecker(checker, symbolTable, tree).Check(decl));
+            return;
+        }
+        ClassT currClass = symbolTable.GetClass(tree.GetNodeName(tree.GetFirstChild(decl)));
+        int name = tree.GetFirstChild(decl);
+        int member = tree.GetNext(tree.GetKind(decl) == Kind.CLASS_EXTENDS ? tree.GetNext(name) : name);
+        for(; member >= 0; member = tree.GetNext(member)) {
+            int method = member;
+            if(tree.GetKind(method) == Kind.METHOD)
+                units.add(() -> new WorklistTypeChecker(checker, symbolTable, tree).CheckMethod(currClass, method));
+        }
+    }
+
+    // Finds the units of the visitors. Method stubs of an Inflater are only inflated by their task.
+    private class Collector extends GJDepthFirst<TypeT, Object> {
+        public TypeT visit(MainClass n, Object argu) {
+            units.add(() -> n.accept(checker, null));
+            return null;
+        }
+
+        public TypeT visit(ClassDeclaration n, Object argu) {
+            AddMethods(n.f1.f0.toString(), n.f4);
+            return null;
+        }
+
+        public TypeT visit(ClassExtendsDeclaration n, Object argu) {
+            AddMethods(n.f1.f0.toString(), n.f6);
+            return null;
+        }
+
+        private void AddMethods(String classId, NodeListOptional methods){
+            ClassT currClass = symbolTable.GetClass(classId);
+            for(Node method : methods.nodes)
+                units.add(() -> method.accept(checker, currClass));
+        }
+    }
+
+    private void Run(){
+        RuntimeException[] errors = new RuntimeException[units.size()];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(units.size());
+        for(int i = 0; i < units.size(); i++) {
+            Runnable unit = units.get(i);
+            int index = i;
+            tasks.add(ForkJoinTask.adapt(() -> {
+                try {
+                    unit.run();
+                } catch (RuntimeException e) {
+                    errors[index] = e;
+                }
+            }));
+        }
+        units.clear();
+
+        pool.invoke(new RecursiveAction() {
+            protected void compute() { invokeAll(tasks); }
+        });
+        for(RuntimeException error : errors)
+            if(error != null)
+                throw error;
+    }
+
+}
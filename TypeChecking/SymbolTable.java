@@ -1,11 +1,14 @@
 package TypeChecking;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class SymbolTable {
     private Map<String,ClassT> symbolTable;
+    private Map<String,TypeT> types; //Every type by name , class types are added when first seen.
+    private boolean frozen;
 
     public static <T1,T2> Map<T1, T2> CreateMap(){ //Every map is initialized with this function so map's implementation is easily changed.
         return new LinkedHashMap<>();
@@ -17,6 +20,18 @@ public class SymbolTable {
 
     public SymbolTable(){
         this.symbolTable = SymbolTable.CreateMap();
+        this.types = SymbolTable.CreateMap();
+        for(TypeT primitive : new TypeT[]{TypeT.INT,TypeT.BOOLEAN,TypeT.INT_ARRAY,TypeT.BOOLEAN_ARRAY,TypeT.STRING_ARRAY})
+            types.put(primitive.GetName(),primitive);
+    }
+
+    public TypeT GetType(String name){ //A class may be used as a type before it is declared.
+        TypeT type = types.get(name);
+        if(type == null){
+            type = new TypeT(name);
+            types.put(name,type);
+        }
+        return type;
     }
 
     public  ClassT GetClass(String id){
@@ -27,8 +42,40 @@ public class SymbolTable {
         if(symbolTable.put(id,nClass) != null){
             throw new RuntimeException("Class " + id + " is already defined.");
         }
+        TypeT type = GetType(id);
+        type.SetClass(nClass);
+        nClass.SetType(type);
     }
 
     public Collection<ClassT> GetClasses() { return symbolTable.values(); }
 
+    public int GetSymbolCount(){ //Classes , fields , methods , arguments and locals.
+        int count = 0;
+        for(ClassT currClass : symbolTable.values()){
+            count += 1 + currClass.GetMembersHash().size();
+            for(FunctionT currFunc : currClass.GetFunctions())
+                count += 1 + currFunc.GetLocalsHash().size(); //Arguments are locals too.
+        }
+        return count;
+    }
+
+    //Once InitVisitor is done nothing is added anymore. Every table of the classes and their functions becomes
+    //read only , so the methods can be checked from several threads (ParallelTypeChecker).
+    public void Freeze(){
+        if(frozen)
+            return;
+        frozen = true;
+        for(ClassT currClass : symbolTable.values())
+            currClass.Freeze();
+        symbolTable = Collections.unmodifiableMap(symbolTable);
+        types = Collections.unmodifiableMap(types);
+    }
+
+    public boolean IsFrozen() { return frozen; }
+
+    public void ResolveLayouts(){ //Classes can only extend previously declared classes , so parents come first.
+        for(ClassT currClass : symbolTable.values())
+            currClass.Resolve(GetClass(currClass.GetExtendType()));
+    }
+
 }
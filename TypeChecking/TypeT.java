@@ -0,0 +1,55 @@
+package TypeChecking;
+
+public final class TypeT {
+    /*------------------------------------------------
+    * A MiniJava type. Primitive types are shared and
+    * every class type is created once by its symbol
+    * table , so types are compared with == instead of
+    * comparing their names.
+    ------------------------------------------------*/
+
+    public static final TypeT INT = new TypeT("int",null);
+    public static final TypeT BOOLEAN = new TypeT("boolean",null);
+    public static final TypeT INT_ARRAY = new TypeT("int[]",INT);
+    public static final TypeT BOOLEAN_ARRAY = new TypeT("boolean[]",BOOLEAN);
+    public static final TypeT STRING_ARRAY = new TypeT("String[]",new TypeT("String",null));
+    public static final TypeT VOID = new TypeT("void",null); //Return type of main.
+
+    private final String name;
+    private final TypeT elementType; //Only for arrays.
+    private final boolean isClass;
+    private ClassT classT; //Set once the class is declared.
+
+    private TypeT(String name, TypeT elementType){
+        this.name = name;
+        this.elementType = elementType;
+        this.isClass = false;
+    }
+
+    TypeT(String className){ //Class types are only created by the symbol table.
+        this.name = className;
+        this.elementType = null;
+        this.isClass = true;
+    }
+
+    void SetClass(ClassT classT) { this.classT = classT; }
+
+    public String GetName() { return name; }
+    public boolean IsClass() { return isClass; }
+    public boolean IsPrimitive() { return !isClass; }
+    public boolean IsArray() { return elementType != null; }
+    public TypeT GetElementType() { return elementType; }
+    public ClassT GetClassT() { return classT; } //Null for primitives and undeclared classes.
+
+    public boolean IsAssignableTo(TypeT lType){ //Sub classes can be assigned to their super class types.
+        if(this == lType)
+            return true;
+        ClassT currClass = classT;
+        while(currClass != null && currClass.GetType() != lType)
+            currClass = currClass.GetSuperClass();
+        return currClass != null;
+    }
+
+    public String toString() { return name; }
+
+}
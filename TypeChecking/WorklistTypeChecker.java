@@ -0,0 +1,214 @@
+package TypeChecking;
+
+import CompactAST.Tree;
+import CompactAST.Tree.Kind;
+import CompactAST.TreeWalker;
+
+import java.util.Arrays;
+
+public class WorklistTypeChecker extends TreeWalker<TypeT> {
+    /*-------------------------------------------------------------
+    * Type checks a compact Tree without recursion (--stack-safe).
+    * The checks and their order are the ones of
+    * TypeCheckingVisitor , which also does every check and
+    * throws the same errors. Statements return null.
+    -------------------------------------------------------------*/
+
+    private final TypeCheckingVisitor checker;
+    private final SymbolTable symbolTable;
+    private FunctionT func; //Method being checked.
+
+    public WorklistTypeChecker(SymbolTable symbolTable, Tree tree){
+        this(new TypeCheckingVisitor(symbolTable), symbolTable, tree); //Also checks that every declared type exists.
+    }
+
+    WorklistTypeChecker(TypeCheckingVisitor checker, SymbolTable symbolTable, Tree tree){ //Shares the checks (ParallelTypeChecker).
+        super(tree);
+        this.checker = checker;
+        this.symbolTable = symbolTable;
+    }
+
+    public void Check(){
+        for(int decl = tree.GetFirstChild(tree.GetRoot()); decl >= 0; decl = tree.GetNext(decl))
+            Check(decl);
+    }
+
+    // The main class or one class declaration (--stream checks them one at a time).
+    public void Check(int decl){
+        ClassT currClass = symbolTable.GetClass(tree.GetNodeName(tree.GetFirstChild(decl)));
+        if(tree.GetKind(decl) == Kind.MAIN_CLASS) {
+            func = currClass.GetFunction("main");
+            for(int statement = GetBody(decl); statement >= 0; statement = tree.GetNext(statement))
+                Walk(statement);
+            return;
+        }
+        for(int member = GetMembers(decl); member >= 0; member = tree.GetNext(member))
+            if(tree.GetKind(member) == Kind.METHOD)
+                CheckMethod(currClass, member);
+    }
+
+    void CheckMethod(ClassT currClass, int method){
+        func = currClass.GetFunction(tree.GetNodeName(tree.GetNext(tree.GetFirstChild(method))));
+        int child = GetBody(method);
+        for(; tree.GetNext(child) >= 0; child = tree.GetNext(child))
+            Walk(child);
+
+        //The return type should be the same as the function one.
+        checker.CheckNormalAssignmentTypes(Walk(child), func.GetReturnType());
+    }
+
+    protected void Step(int node, Kind kind, int step){
+        switch (kind){
+            /* STATEMENTS --------------------------------------- */
+            case BLOCK:
+                if(step > 0)
+                    Pop();
+                int statement = NextChild();
+                if(statement >= 0)
+                    Visit(statement);
+                else
+                    Return(null);
+                break;
+            case ASSIGNMENT:
+                if(step == 0) {
+                    SetState(checker.GetVarTypeFromScope(func, tree.GetNodeName(NextChild())));
+                    Visit(NextChild());
+                }else{
+                    checker.CheckNormalAssignmentTypes(Pop(), (TypeT)GetState());
+                    Return(null);
+                }
+                break;
+            case ARRAY_ASSIGNMENT:
+                if(step == 0) {
+                    SetState(checker.CheckArrayAssignmentTarget(checker.GetVarTypeFromScope(func, tree.GetNodeName(NextChild()))));
+                    Visit(NextChild());
+                }else if(step == 1) {
+                    checker.CheckArrayAssignmentIndex(Pop());
+                    Visit(NextChild());
+                }else{
+                    checker.CheckArrayAssignmentValue((TypeT)GetState(), Pop());
+                    Return(null);
+                }
+                break;
+            case IF:
+                if(step == 1)
+                    checker.CheckIfCondition(Pop());
+                else if(step > 1)
+                    Pop();
+                if(step < 3)
+                    Visit(NextChild());
+                else
+                    Return(null);
+                break;
+            case WHILE:
+                if(step == 0) {
+                    Visit(NextChild());
+                }else if(step == 1) {
+                    checker.CheckWhileCondition(Pop());
+                    Visit(NextChild());
+                }else{
+                    Pop();
+                    Return(null);
+                }
+                break;
+            case PRINT:
+                if(step == 0) {
+                    Visit(NextChild());
+                }else{
+                    checker.CheckPrint(Pop());
+                    Return(null);
+                }
+                break;
+
+            /* EXPRESSIONS --------------------------------------- */
+            case INTEGER_LITERAL: Return(checker.CheckIntegerLiteral(tree.GetNodeName(node))); break;
+            case TRUE: case FALSE: Return(TypeT.BOOLEAN); break;
+            case IDENTIFIER: Return(checker.GetVarTypeFromScope(func, tree.GetNodeName(node))); break;
+            case THIS: Return(func.GetParentClass().GetType()); break;
+            case ALLOCATION: Return(checker.GetAllocatedType(tree.GetNodeName(NextChild()))); break;
+            case BRACKET:
+                if(step == 0)
+                    Visit(NextChild());
+                else
+                    Return(Pop());
+                break;
+            case BOOLEAN_ARRAY_ALLOCATION:
+            case INT_ARRAY_ALLOCATION:
+                if(step == 0) {
+                    Visit(NextChild());
+                }else{
+                    checker.CheckArraySize(Pop());
+                    Return(kind == Kind.INT_ARRAY_ALLOCATION ? TypeT.INT_ARRAY : TypeT.BOOLEAN_ARRAY);
+                }
+                break;
+            case NOT:
+                if(step == 0)
+                    Visit(NextChild());
+                else
+                    Return(checker.CheckNot(Pop()));
+                break;
+            case ARRAY_LENGTH:
+                if(step == 0)
+                    Visit(NextChild());
+                else
+                    Return(checker.CheckArrayLength(Pop()));
+                break;
+            case AND: case COMPARE: case PLUS: case MINUS: case TIMES: case ARRAY_LOOKUP:
+                if(step < 2) {
+                    Visit(NextChild());
+                    break;
+                }
+                TypeT type2 = Pop();
+                TypeT type1 = Pop();
+                Return(Binary(kind, type1, type2));
+                break;
+            case MESSAGE_SEND:
+                MessageSend(step);
+                break;
+            default:
+                throw new IllegalStateException(kind + " is not a statement or an expression.");
+        }
+    }
+
+    private TypeT Binary(Kind kind, TypeT type1, TypeT type2){
+        switch (kind){
+            case AND:
+                checker.ExprOpHelper(type1,TypeT.BOOLEAN,type2,TypeT.BOOLEAN,"&&");
+                return TypeT.BOOLEAN;
+            case COMPARE:
+                checker.ExprOpHelper(type1,TypeT.INT,type2,TypeT.INT,"<");
+                return TypeT.BOOLEAN;
+            case PLUS:
+                checker.ExprOpHelper(type1,TypeT.INT,type2,TypeT.INT,"+");
+                return TypeT.INT;
+            case MINUS:
+                checker.ExprOpHelper(type1,TypeT.INT,type2,TypeT.INT,"-");
+                return TypeT.INT;
+            case TIMES:
+                checker.ExprOpHelper(type1,TypeT.INT,type2,TypeT.INT,"*");
+                return TypeT.INT;
+            default:
+                return checker.CheckArrayLookup(type1,type2);
+        }
+    }
+
+    // Receiver , then the called function is found , then the arguments (step - 1 of them once they are done).
+    private void MessageSend(int step){
+        if(step == 0) {
+            Visit(NextChild());
+            return;
+        }
+        if(step == 1)
+            SetState(checker.GetCalledFunction(Pop(), tree.GetNodeName(NextChild())));
+        int arg = NextChild();
+        if(arg >= 0) {
+            Visit(arg);
+            return;
+        }
+        TypeT[] args = new TypeT[step - 1];
+        for(int i = args.length - 1; i >= 0; i--)
+            args[i] = Pop();
+        Return(checker.CheckArguments((FunctionT)GetState(), Arrays.asList(args)));
+    }
+
+}